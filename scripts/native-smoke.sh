@@ -0,0 +1,97 @@
+#!/usr/bin/env bash
+#
+# Smoke test for the native executable: boots it against the compose Postgres and RabbitMQ,
+# sends one CREATE command through user.exchange and waits for the resulting user event.
+#
+# Usage: mvn -Pnative -DskipTests native:compile && scripts/native-smoke.sh [path-to-binary]
+#
+set -euo pipefail
+
+BIN=${1:-target/e-commerce-proj-user-service}
+PORT=${SMOKE_PORT:-18080}
+RABBIT_API=${RABBIT_API:-http://localhost:15672/api}
+RABBIT_AUTH=${RABBIT_AUTH:-guest:guest}
+QUEUE=native.smoke
+TIMEOUT=${SMOKE_TIMEOUT:-60}
+
+if [[ ! -x "$BIN" ]]; then
+  echo "native binary not found at $BIN" >&2
+  exit 1
+fi
+
+api() {
+  local method=$1 path=$2
+  shift 2
+  curl -fsS -u "$RABBIT_AUTH" -X "$method" -H 'Content-Type: application/json' "$RABBIT_API$path" "$@"
+}
+
+docker compose up -d postgres rabbitmq
+echo "waiting for postgres and rabbitmq..."
+for _ in $(seq "$TIMEOUT"); do
+  if docker compose exec -T postgres pg_isready -U user -d userdb >/dev/null 2>&1 \
+     && api GET /overview >/dev/null 2>&1; then
+    break
+  fi
+  sleep 1
+done
+
+# The native binary has no migrate mode; apply the changelog with the JVM image
+docker compose run --rm user-service-migrate
+
+LOG=$(mktemp)
+SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/userdb \
+SPRING_DATASOURCE_USERNAME=user \
+SPRING_DATASOURCE_PASSWORD=password \
+SPRING_RABBITMQ_HOST=localhost \
+SERVER_PORT=$PORT \
+  "$BIN" >"$LOG" 2>&1 &
+APP_PID=$!
+
+cleanup() {
+  kill "$APP_PID" 2>/dev/null || true
+  wait "$APP_PID" 2>/dev/null || true
+  api DELETE "/queues/%2F/$QUEUE" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+echo "waiting for the application to become healthy..."
+for _ in $(seq "$TIMEOUT"); do
+  if curl -fsS "http://localhost:$PORT/actuator/health" 2>/dev/null | grep -q '"UP"'; then
+    break
+  fi
+  if ! kill -0 "$APP_PID" 2>/dev/null; then
+    echo "application exited during startup:" >&2
+    cat "$LOG" >&2
+    exit 1
+  fi
+  sleep 1
+done
+grep -m1 -o 'Started .* in [0-9.]* seconds.*' "$LOG" || true
+
+# Events are published as user.<event> (two words); commands are user.command.<action>
+api PUT "/queues/%2F/$QUEUE" -d '{"durable":false,"auto_delete":false}' >/dev/null
+api POST "/bindings/%2F/e/user.exchange/q/$QUEUE" -d '{"routing_key":"user.*"}' >/dev/null
+
+NAME="native-smoke-$(date +%s)"
+COMMAND="{\"action\":\"create\",\"user\":{\"username\":\"$NAME\",\"email\":\"$NAME@smoke.test\",\"phone\":\"555$(date +%s | tail -c 8)\",\"firstName\":\"Native\",\"lastName\":\"Smoke\"}}"
+PUBLISH=$(jq -n --arg payload "$COMMAND" --arg id "$NAME" '{
+  properties: {content_type: "application/json", message_id: $id},
+  routing_key: "user.command.create",
+  payload: $payload,
+  payload_encoding: "string"
+}')
+api POST "/exchanges/%2F/user.exchange/publish" -d "$PUBLISH" | grep -q '"routed":true'
+
+echo "waiting for the user event..."
+for _ in $(seq "$TIMEOUT"); do
+  EVENTS=$(api POST "/queues/%2F/$QUEUE/get" -d '{"count":10,"ackmode":"ack_requeue_false","encoding":"auto"}')
+  if grep -q "$NAME" <<<"$EVENTS"; then
+    echo "OK: native binary processed the create command"
+    exit 0
+  fi
+  sleep 1
+done
+
+echo "FAILED: no event for $NAME within ${TIMEOUT}s; application log:" >&2
+cat "$LOG" >&2
+exit 1
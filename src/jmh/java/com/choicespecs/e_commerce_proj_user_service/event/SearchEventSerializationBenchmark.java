@@ -0,0 +1,75 @@
+package com.choicespecs.e_commerce_proj_user_service.event;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Jackson serialization of a {@code user.search} reply at the default (50) and maximum (200) page size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchEventSerializationBenchmark {
+
+    @Param({"50", "200"})
+    public int rows;
+
+    // Mirrors the Boot defaults used by the message converter (ISO-8601 dates)
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private UserServiceSearchEvent event;
+
+    @Setup
+    public void setUp() {
+        List<UserEntity> content = new ArrayList<>(rows);
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < rows; i++) {
+            UserEntity u = new UserEntity();
+            u.setId(UUID.randomUUID());
+            u.setUsername("user" + i);
+            u.setEmail("user" + i + "@example.com");
+            u.setPhone("555" + String.format("%07d", i));
+            u.setFirstName("First" + i);
+            u.setLastName("Last" + i);
+            u.setCreatedAt(now);
+            u.setUpdatedAt(now);
+            u.setVersion(1L);
+            content.add(u);
+        }
+        UserSearchRequest req = new UserSearchRequest();
+        req.setQ("user");
+        req.setSize(rows);
+        event = UserServiceSearchEvent.success("req-bench", req, 10_000L, 10_000 / rows, content);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+}
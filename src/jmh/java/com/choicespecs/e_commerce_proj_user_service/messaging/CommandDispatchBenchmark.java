@@ -0,0 +1,89 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.model.ActionType;
+import com.choicespecs.e_commerce_proj_user_service.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Per-message decoding done by {@link UserServiceListener} before the service is called:
+ * action dispatch and {@code treeToValue} of each command's payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandDispatchBenchmark {
+
+    private static final String[] ACTIONS = {"CREATE", "update", "Delete", "get", "SEARCH"};
+    private int next;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private JsonNode createUser;
+    private JsonNode updateUser;
+    private JsonNode getUser;
+    private JsonNode search;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        createUser = objectMapper.readTree("""
+            {"action":"create","user":{"username":"jdoe","email":"john.doe@example.com","phone":"5551234567","firstName":"John","lastName":"Doe"}}
+            """).get(FieldConstants.USER_FIELD);
+        updateUser = objectMapper.readTree("""
+            {"action":"update","user":{"username":"jdoe","phone":"5557654321"}}
+            """).get(FieldConstants.USER_FIELD);
+        getUser = objectMapper.readTree("""
+            {"action":"get","user":{"email":"john.doe@example.com"}}
+            """).get(FieldConstants.USER_FIELD);
+        search = objectMapper.readTree("""
+            {"action":"search","q":"john","page":0,"size":50,"sortBy":"username","sortDir":"asc","includeDeleted":false}
+            """);
+    }
+
+    @Benchmark
+    public ActionType actionFromString() {
+        String action = ACTIONS[next++ % ACTIONS.length];
+        // The listener lowercases the action before parsing it
+        return ActionType.fromString(action.toLowerCase());
+    }
+
+    @Benchmark
+    public User treeToValue_create() throws JsonProcessingException {
+        return objectMapper.treeToValue(createUser, User.class);
+    }
+
+    @Benchmark
+    public UserRequest treeToValue_update() throws JsonProcessingException {
+        return objectMapper.treeToValue(updateUser, UserRequest.class);
+    }
+
+    @Benchmark
+    public UserRequest treeToValue_get() throws JsonProcessingException {
+        return objectMapper.treeToValue(getUser, UserRequest.class);
+    }
+
+    @Benchmark
+    public UserSearchRequest treeToValue_search() throws JsonProcessingException {
+        return objectMapper.treeToValue(search, UserSearchRequest.class);
+    }
+}
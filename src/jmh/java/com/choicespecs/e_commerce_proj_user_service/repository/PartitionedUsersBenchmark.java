@@ -0,0 +1,129 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.sql.Connection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+/**
+ * Lookup and search latency of {@link UserJdbcRepository} on a plain versus a hash-partitioned
+ * {@code users} table, against an embedded Postgres seeded with {@code rows} users.
+ *
+ * <p>{@code partitions = 0} stops the changelog before changeset 009 (the plain table); any other
+ * value runs it with that many partitions. The data is seeded before 009 runs, so the partitioned
+ * variants also exercise the data copy. Seeding dominates the setup; for a larger table:</p>
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PartitionedUsersBenchmark -p rows=10000000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PartitionedUsersBenchmark {
+
+    /** Changesets up to and including 008, i.e. everything before partitioning. */
+    private static final int CHANGESETS_BEFORE_PARTITIONING = 8;
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.yaml";
+
+    @Param({"0", "16", "64"})
+    public int partitions;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private EmbeddedPostgres postgres;
+    private Connection connection;
+    private UserJdbcRepository repository;
+    private UserSearchRequest defaultPage;
+    private UserSearchRequest lastNameFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        connection = postgres.getPostgresDatabase().getConnection();
+        Liquibase liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), new JdbcConnection(connection));
+        // Set before the first update: the changelog is parsed (and parameters substituted) only once
+        liquibase.setChangeLogParameter("users.partitions", Math.max(partitions, 1));
+        liquibase.update(CHANGESETS_BEFORE_PARTITIONING, "");
+        // Liquibase leaves the connection in manual-commit mode; VACUUM needs autocommit
+        connection.setAutoCommit(true);
+
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        jdbc.update("""
+            INSERT INTO users (username, email, first_name, last_name, phone, deleted, created_at)
+            SELECT 'user' || g, 'user' || g || '@example.com', 'First' || (g % 5000), 'Last' || (g % 7000),
+                   lpad(g::text, 10, '0'), g % 10 = 0, now() - g * interval '1 second'
+              FROM generate_series(1, ?) g
+            """, rows);
+        if (partitions > 0) {
+            liquibase.update("");
+            connection.setAutoCommit(true);
+        }
+        jdbc.execute("VACUUM ANALYZE users");
+
+        repository = new UserJdbcRepository(new NamedParameterJdbcTemplate(jdbc), new SimpleMeterRegistry());
+        defaultPage = new UserSearchRequest(null, null, 0, 50, null, null, false);
+        UserFilter filter = new UserFilter();
+        filter.setLastName("Last123");
+        lastNameFilter = new UserSearchRequest(null, filter, 0, 50, "createdAt", "desc", false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+        postgres.close();
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(1, rows + 1);
+    }
+
+    @Benchmark
+    public Object getByUsername() {
+        return repository.getUser(new UserRequest(null, null, null, null, "USER" + randomUser()));
+    }
+
+    @Benchmark
+    public Object getByEmail() {
+        return repository.getUser(new UserRequest(null, null, null, "user" + randomUser() + "@example.com", null));
+    }
+
+    @Benchmark
+    public Object searchDefaultPage() {
+        return repository.searchUserPage(defaultPage);
+    }
+
+    @Benchmark
+    public Object searchLastNameSortedByCreatedAt() {
+        return repository.searchUserPage(lastNameFilter);
+    }
+}
@@ -0,0 +1,50 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory {@link ResultSet} positioned on a single {@code users} row, so the row mapper can be
+ * measured without a driver. Only the getters the mapper calls are implemented.
+ */
+final class SyntheticResultSet {
+
+    private SyntheticResultSet() {}
+
+    static ResultSet usersRow() {
+        Timestamp now = Timestamp.from(Instant.parse("2025-01-01T00:00:00Z"));
+        Map<String, Object> row = Map.of(
+            "id", UUID.fromString("3f1c1e9a-8a1e-4d2b-9a57-7e0e5f1a2b3c"),
+            "first_name", "John",
+            "last_name", "Doe",
+            "phone", "5551234567",
+            "email", "john.doe@example.com",
+            "username", "jdoe",
+            "deleted", Boolean.FALSE,
+            "created_at", now,
+            "updated_at", now,
+            "version", 3L
+        );
+        return (ResultSet) Proxy.newProxyInstance(
+            SyntheticResultSet.class.getClassLoader(),
+            new Class<?>[] { ResultSet.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getObject":
+                    case "getString":
+                    case "getTimestamp":
+                    case "getBoolean":
+                    case "getLong":
+                        return row.get((String) args[0]);
+                    case "wasNull":
+                        return false;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
@@ -0,0 +1,88 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * SQL building and row mapping cost of {@link UserJdbcRepository}, without a database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJdbcRepositoryBenchmark {
+
+    private UserJdbcRepository repository;
+    private UserSearchRequest freeText;
+    private UserSearchRequest structured;
+    private RowMapper<UserEntity> rowMapper;
+    private ResultSet row;
+
+    @Setup
+    public void setUp() {
+        // Only the query-building helpers are exercised, so no template is needed
+        repository = new UserJdbcRepository(null, new SimpleMeterRegistry());
+
+        freeText = new UserSearchRequest();
+        freeText.setQ("Jo_hn%");
+
+        UserFilter filter = new UserFilter();
+        filter.setFirstName("John");
+        filter.setLastName("Doe");
+        filter.setEmail("john.doe@example.com");
+        structured = new UserSearchRequest();
+        structured.setUser(filter);
+
+        rowMapper = repository.rowMapper();
+        row = SyntheticResultSet.usersRow();
+    }
+
+    @Benchmark
+    public String appendFilters_freeText() {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM users WHERE 1=1");
+        Map<String, Object> p = new HashMap<>();
+        repository.appendFilters(sql, p, freeText);
+        return sql.toString();
+    }
+
+    @Benchmark
+    public String appendFilters_structured() {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM users WHERE 1=1");
+        Map<String, Object> p = new HashMap<>();
+        repository.appendFilters(sql, p, structured);
+        return sql.toString();
+    }
+
+    @Benchmark
+    public String escapeLike() {
+        return repository.escapeLike("50%_off\\deal");
+    }
+
+    @Benchmark
+    public UserEntity rowMapper() throws SQLException {
+        return rowMapper.mapRow(row, 0);
+    }
+}
@@ -2,13 +2,23 @@ package com.choicespecs.e_commerce_proj_user_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.choicespecs.e_commerce_proj_user_service.config.SchemaMigration;
+import com.choicespecs.e_commerce_proj_user_service.config.UserServiceRuntimeHints;
 
 @SpringBootApplication
 @EnableJdbcRepositories
+@EnableScheduling
+@ImportRuntimeHints(UserServiceRuntimeHints.class)
 public class ECommerceProjUserServiceApplication {
 
 	public static void main(String[] args) {
+		if (SchemaMigration.isRequested(args)) {
+			System.exit(SchemaMigration.run(args));
+		}
 		SpringApplication.run(ECommerceProjUserServiceApplication.class, args);
 	}
 
@@ -1,19 +1,33 @@
 package com.choicespecs.e_commerce_proj_user_service.config;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.choicespecs.e_commerce_proj_user_service.event.EventPublisher;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * This class configures the {@link EventPublisher} class to bean factory. 
  * This will wrap around the {@link RabbitTemplate} 
  * to make publishing events easier.
+ * A positive {@code user.events.coalescing.window-ms} turns on per-user coalescing of
+ * {@code user.updated} events.
  */
 @Configuration
 public class EventPublisherConfig {
     @Bean
-    public EventPublisher eventPublisher(RabbitTemplate rabbitTemplate) {
-        return new EventPublisher(rabbitTemplate);
+    public EventPublisher eventPublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                                         @Value("${user.events.coalescing.window-ms:0}") long windowMs,
+                                         @Value("${user.events.coalescing.max-delay-ms:2000}") long maxDelayMs,
+                                         @Value("${user.timing.reply-headers:true}") boolean stageTimingHeaders) {
+        EventPublisher publisher = new EventPublisher(rabbitTemplate);
+        publisher.setMeterRegistry(meterRegistry);
+        publisher.setStageTimingHeaders(stageTimingHeaders);
+        if (windowMs > 0) {
+            publisher.enableUpdateCoalescing(windowMs, maxDelayMs, meterRegistry);
+        }
+        return publisher;
     }
 }
@@ -0,0 +1,40 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.ObservedNamedParameterJdbcTemplate;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.SlowQueryEndpoint;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.SlowQueryLog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replaces Boot's {@link NamedParameterJdbcTemplate} with {@link ObservedNamedParameterJdbcTemplate},
+ * so every repository (and Spring Data JDBC) feeds the slow-query log exposed at
+ * {@code /actuator/slowqueries}.
+ */
+@Configuration
+public class JdbcObservationConfig {
+
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${user.diagnostics.slow-query.capacity:100}") int capacity) {
+        return new SlowQueryLog(capacity);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(
+            JdbcTemplate jdbcTemplate, SlowQueryLog slowQueryLog, MeterRegistry meterRegistry,
+            @Value("${user.diagnostics.slow-query.threshold-ms:200}") long thresholdMs,
+            @Value("${user.diagnostics.slow-query.explain-sample-rate:0.1}") double explainSampleRate) {
+        return new ObservedNamedParameterJdbcTemplate(jdbcTemplate, slowQueryLog, thresholdMs, explainSampleRate, meterRegistry);
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+}
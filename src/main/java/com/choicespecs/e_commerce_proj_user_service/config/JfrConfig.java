@@ -0,0 +1,48 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.ContinuousRecording;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.JfrEndpoint;
+
+/**
+ * Continuous JFR recording, controllable at {@code /actuator/jfr}.
+ *
+ * <p>With {@code user.jfr.continuous=true} the recording starts once the application is ready, so
+ * it covers real traffic but not startup.</p>
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean(destroyMethod = "stop")
+    public ContinuousRecording continuousRecording(
+            @Value("${user.jfr.max-age:PT30M}") Duration maxAge,
+            @Value("${user.jfr.max-size:256MB}") DataSize maxSize,
+            @Value("${user.jfr.dump-dir:${java.io.tmpdir}/user-service-jfr}") Path dumpDir) {
+        return new ContinuousRecording(maxAge, maxSize.toBytes(), dumpDir);
+    }
+
+    @Bean
+    public JfrEndpoint jfrEndpoint(ContinuousRecording continuousRecording) {
+        return new JfrEndpoint(continuousRecording);
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> continuousRecordingStarter(
+            ContinuousRecording continuousRecording,
+            @Value("${user.jfr.continuous:false}") boolean continuous) {
+        return event -> {
+            if (continuous) {
+                continuousRecording.start();
+            }
+        };
+    }
+}
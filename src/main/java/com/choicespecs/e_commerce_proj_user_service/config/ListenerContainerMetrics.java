@@ -0,0 +1,64 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import java.util.List;
+
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gauges for the command listener containers.
+ *
+ * <ul>
+ *   <li>{@code user.listener.consumers{listener}} – active consumer threads (moves with max-concurrency scaling).</li>
+ *   <li>{@code user.listener.running{listener}} – 1 while the container is consuming, 0 when stopped.</li>
+ * </ul>
+ * Containers are looked up by listener id on every read, since they are registered after the meter
+ * registry is bound.
+ */
+@Component
+public class ListenerContainerMetrics implements MeterBinder {
+
+    private static final List<String> LISTENER_IDS = List.of(
+        RabbitMQConstants.LEGACY_LISTENER_ID,
+        RabbitMQConstants.WRITE_LISTENER_ID,
+        RabbitMQConstants.READ_LISTENER_ID,
+        RabbitMQConstants.SEARCH_LISTENER_ID
+    );
+
+    private final RabbitListenerEndpointRegistry registry;
+
+    public ListenerContainerMetrics(RabbitListenerEndpointRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (String id : LISTENER_IDS) {
+            Gauge.builder("user.listener.consumers", registry, r -> activeConsumers(r.getListenerContainer(id)))
+                .tag("listener", id)
+                .register(meterRegistry);
+            Gauge.builder("user.listener.running", registry, r -> running(r.getListenerContainer(id)))
+                .tag("listener", id)
+                .register(meterRegistry);
+        }
+    }
+
+    private static double activeConsumers(MessageListenerContainer container) {
+        if (container instanceof SimpleMessageListenerContainer simple) {
+            return simple.getActiveConsumerCount();
+        }
+        return 0;
+    }
+
+    private static double running(MessageListenerContainer container) {
+        return container != null && container.isRunning() ? 1 : 0;
+    }
+}
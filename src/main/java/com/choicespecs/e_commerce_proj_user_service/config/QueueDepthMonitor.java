@@ -0,0 +1,76 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes per-queue backlog gauges for the command queues.
+ *
+ * <p>Queue depth is polled from the broker on a fixed delay (not on every scrape) and exposed as:</p>
+ * <ul>
+ *   <li>{@code user.queue.depth{queue}} – ready messages waiting in the queue (lag).</li>
+ *   <li>{@code user.queue.consumers{queue}} – consumers attached to the queue.</li>
+ * </ul>
+ * Per-queue throughput comes from Spring AMQP's own {@code spring.rabbitmq.listener} timer,
+ * which is tagged with the listener id of each container.
+ */
+@Component
+public class QueueDepthMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueDepthMonitor.class);
+
+    private static final List<String> QUEUES = List.of(
+        RabbitMQConstants.USER_QUEUE,
+        RabbitMQConstants.USER_WRITE_QUEUE,
+        RabbitMQConstants.USER_READ_QUEUE,
+        RabbitMQConstants.USER_SEARCH_QUEUE
+    );
+
+    private final AmqpAdmin amqpAdmin;
+    private final Map<String, AtomicLong> depth = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> consumers = new LinkedHashMap<>();
+
+    public QueueDepthMonitor(AmqpAdmin amqpAdmin, MeterRegistry meterRegistry) {
+        this.amqpAdmin = amqpAdmin;
+        for (String queue : QUEUES) {
+            AtomicLong d = new AtomicLong();
+            AtomicLong c = new AtomicLong();
+            depth.put(queue, d);
+            consumers.put(queue, c);
+            Gauge.builder("user.queue.depth", d, AtomicLong::get).tag("queue", queue).register(meterRegistry);
+            Gauge.builder("user.queue.consumers", c, AtomicLong::get).tag("queue", queue).register(meterRegistry);
+        }
+    }
+
+    /**
+     * Refreshes the gauges from the broker. Failures are logged and the previous values are kept.
+     */
+    @Scheduled(fixedDelayString = "${user.queues.metrics.poll-interval-ms:15000}")
+    public void poll() {
+        for (String queue : QUEUES) {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(queue);
+                if (info != null) {
+                    depth.get(queue).set(info.getMessageCount());
+                    consumers.get(queue).set(info.getConsumerCount());
+                }
+            } catch (Exception e) {
+                log.debug("Could not poll queue depth for {}", queue, e);
+            }
+        }
+    }
+}
@@ -1,22 +1,53 @@
 package com.choicespecs.e_commerce_proj_user_service.config;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.HeadersExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
 import org.springframework.amqp.support.converter.Jackson2JavaTypeMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.PublishEvent;
+import com.choicespecs.e_commerce_proj_user_service.messaging.RetryBackoff;
 
 
 /**
  * RabbitMQConfiguration for Spring Boot Application
  * 
+ * <h2>Command classes</h2>
+ * Commands are split into three classes, each with its own queue, listener container,
+ * concurrency and prefetch so that a flood of expensive searches cannot starve writes or point reads:
+ * <ul>
+ *   <li>writes ({@code create}/{@code update}/{@code delete}) → {@link RabbitMQConstants#USER_WRITE_QUEUE}</li>
+ *   <li>point reads ({@code get}) → {@link RabbitMQConstants#USER_READ_QUEUE}</li>
+ *   <li>searches ({@code search}) and change feeds ({@code changesSince}) → {@link RabbitMQConstants#USER_SEARCH_QUEUE}</li>
+ * </ul>
+ * The legacy {@link RabbitMQConstants#USER_QUEUE} bound to {@code user.*} stays in place during
+ * migration and keeps dispatching on the {@code action} field.
+ *
+ * <h2>Retry topology</h2>
+ * Failed commands are republished by {@code RetryRouter} to a headers exchange that routes on
+ * {@code x-retry-level} into one TTL queue per attempt. When the TTL expires the message is
+ * dead-lettered to the default exchange with its original routing key (the originating queue name),
+ * landing back on the queue it came from. Poison messages end up in
+ * {@link RabbitMQConstants#USER_PARKING_LOT_QUEUE}.
  */
 @Configuration
 public class RabbitMQConfig {
@@ -90,8 +121,152 @@ public class RabbitMQConfig {
      * @return
      */
     @Bean
-    public Binding bindUserCommands(Queue userCommandQueue, TopicExchange userExchange) {
-        return BindingBuilder.bind(userCommandQueue).to(userExchange).with(RabbitMQConstants.USER_COMMAND_PATTERN);
+    public Binding bindUserCommands(Queue userQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userQueue).to(userExchange).with(RabbitMQConstants.USER_COMMAND_PATTERN);
+    }
+
+    /**
+     * Queue for write commands (create/update/delete).
+     * @return Queue
+     */
+    @Bean
+    public Queue userWriteQueue() {
+        return new Queue(RabbitMQConstants.USER_WRITE_QUEUE, true);
+    }
+
+    /**
+     * Queue for point reads (get).
+     * @return Queue
+     */
+    @Bean
+    public Queue userReadQueue() {
+        return new Queue(RabbitMQConstants.USER_READ_QUEUE, true);
+    }
+
+    /**
+     * Queue for searches.
+     * @return Queue
+     */
+    @Bean
+    public Queue userSearchQueue() {
+        return new Queue(RabbitMQConstants.USER_SEARCH_QUEUE, true);
+    }
+
+    @Bean
+    public Binding bindCreateCommands(Queue userWriteQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userWriteQueue).to(userExchange).with(RabbitMQConstants.USER_CREATE_COMMAND_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding bindUpdateCommands(Queue userWriteQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userWriteQueue).to(userExchange).with(RabbitMQConstants.USER_UPDATE_COMMAND_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding bindDeleteCommands(Queue userWriteQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userWriteQueue).to(userExchange).with(RabbitMQConstants.USER_DELETE_COMMAND_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding bindGetCommands(Queue userReadQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userReadQueue).to(userExchange).with(RabbitMQConstants.USER_GET_COMMAND_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding bindSearchCommands(Queue userSearchQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userSearchQueue).to(userExchange).with(RabbitMQConstants.USER_SEARCH_COMMAND_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding bindChangesCommands(Queue userSearchQueue, TopicExchange userExchange) {
+        return BindingBuilder.bind(userSearchQueue).to(userExchange).with(RabbitMQConstants.USER_CHANGES_COMMAND_ROUTING_KEY);
+    }
+
+    /**
+     * Listener container factory for write commands.
+     * Starts from the Boot defaults ({@code spring.rabbitmq.listener.simple.*}, message converter)
+     * and overrides concurrency and prefetch from {@code user.queues.write.*}.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory writeListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${user.queues.write.concurrency:2}") int concurrency,
+            @Value("${user.queues.write.max-concurrency:4}") int maxConcurrency,
+            @Value("${user.queues.write.prefetch:10}") int prefetch) {
+        return commandClassFactory(configurer, connectionFactory, concurrency, maxConcurrency, prefetch);
+    }
+
+    /**
+     * Listener container factory for point reads; see {@code user.queues.read.*}.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory readListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${user.queues.read.concurrency:4}") int concurrency,
+            @Value("${user.queues.read.max-concurrency:8}") int maxConcurrency,
+            @Value("${user.queues.read.prefetch:50}") int prefetch) {
+        return commandClassFactory(configurer, connectionFactory, concurrency, maxConcurrency, prefetch);
+    }
+
+    /**
+     * Listener container factory for searches; see {@code user.queues.search.*}.
+     * Kept small with a low prefetch so long searches don't hoard messages.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory searchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${user.queues.search.concurrency:1}") int concurrency,
+            @Value("${user.queues.search.max-concurrency:2}") int maxConcurrency,
+            @Value("${user.queues.search.prefetch:1}") int prefetch) {
+        return commandClassFactory(configurer, connectionFactory, concurrency, maxConcurrency, prefetch);
+    }
+
+    /**
+     * Exponential backoff schedule shared by the retry topology and {@code RetryRouter}.
+     */
+    @Bean
+    public RetryBackoff retryBackoff(
+            @Value("${user.retry.max-attempts:5}") int maxAttempts,
+            @Value("${user.retry.initial-delay-ms:1000}") long initialDelayMs,
+            @Value("${user.retry.multiplier:4.0}") double multiplier,
+            @Value("${user.retry.max-delay-ms:300000}") long maxDelayMs) {
+        return new RetryBackoff(maxAttempts, initialDelayMs, multiplier, maxDelayMs);
+    }
+
+    /**
+     * Declares the retry exchange, one delayed-retry queue per attempt and the parking-lot queue.
+     *
+     * @param retryBackoff backoff schedule; attempt {@code n} is held for {@code delayFor(n)} ms
+     * @return the retry declarables
+     */
+    @Bean
+    @ConditionalOnProperty(name = "user.retry.enabled", havingValue = "true", matchIfMissing = true)
+    public Declarables retryTopology(RetryBackoff retryBackoff) {
+        List<Declarable> declarables = new ArrayList<>();
+        HeadersExchange retryExchange = new HeadersExchange(RabbitMQConstants.USER_RETRY_EXCHANGE, true, false);
+        declarables.add(retryExchange);
+        for (int attempt = 1; attempt <= retryBackoff.getMaxAttempts(); attempt++) {
+            Queue retryQueue = QueueBuilder.durable(RabbitMQConstants.USER_RETRY_QUEUE_PREFIX + attempt)
+                .ttl((int) retryBackoff.delayFor(attempt))
+                .deadLetterExchange("")
+                .build();
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange)
+                .where(FieldConstants.HEADER_RETRY_LEVEL_FIELD).matches(String.valueOf(attempt)));
+        }
+        declarables.add(QueueBuilder.durable(RabbitMQConstants.USER_PARKING_LOT_QUEUE).build());
+        return new Declarables(declarables);
+    }
+
+    private SimpleRabbitListenerContainerFactory commandClassFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            int concurrency, int maxConcurrency, int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(prefetch);
+        return factory;
     }
 
     /**
@@ -150,6 +325,8 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // Lets the JFR publish event in flight on this thread see the converted payload size
+        template.addBeforePublishPostProcessors(PublishEvent::capturePayloadSize);
         return template;
     }
 }
@@ -0,0 +1,46 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Migrate-only run mode: {@code java -jar app.jar migrate}.
+ *
+ * <p>Boots a minimal context with just the DataSource and Liquibase (no web server, broker or
+ * listeners), applies {@code db.changelog-master.yaml} and exits. The {@code migrate} profile
+ * ({@code application-migrate.properties}) turns Liquibase back on; serving instances keep it off
+ * and only check the schema with {@link SchemaVersionVerifier}.</p>
+ *
+ * <p>Deliberately not a stereotype, so the serving application's component scan ignores it. The
+ * minimal context has no AOT artifacts, so it always runs in JIT mode, and it is not available in
+ * the native executable.</p>
+ */
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, LiquibaseAutoConfiguration.class})
+public class SchemaMigration {
+
+    public static final String COMMAND = "migrate";
+
+    /**
+     * @return {@code true} if the first program argument selects migrate-only mode
+     */
+    public static boolean isRequested(String[] args) {
+        return args.length > 0 && COMMAND.equals(args[0]);
+    }
+
+    /**
+     * Applies the changelog and returns the process exit code.
+     */
+    public static int run(String[] args) {
+        System.setProperty("spring.aot.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SchemaMigration.class)
+            .web(WebApplicationType.NONE)
+            .profiles(COMMAND)
+            .run(args);
+        return SpringApplication.exit(context);
+    }
+}
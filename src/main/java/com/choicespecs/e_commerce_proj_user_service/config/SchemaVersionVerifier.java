@@ -0,0 +1,115 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Checks at startup that every changeSet in the master changelog has been applied.
+ *
+ * <p>Serving instances run with {@code spring.liquibase.enabled=false} (migrations are applied by
+ * the {@link SchemaMigration migrate} run mode), so instead of taking the Liquibase lock and
+ * validating checksums they issue one query against {@code databasechangelog}. Runs before the
+ * listener warm-up; with {@code user.schema.verify=fail} (the default) a missing changeSet aborts
+ * startup, with {@code warn} it is only logged, with {@code off} the check is skipped.</p>
+ *
+ * <p>Only changeSets declared inline in the master file are checked; {@code include}s are not
+ * followed. Extra changeSets in the database (a newer schema during a rolling deploy) are fine.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SchemaVersionVerifier implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaVersionVerifier.class);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ResourceLoader resourceLoader;
+    private final String changeLog;
+    private final String changeLogTable;
+    private final String mode;
+
+    public SchemaVersionVerifier(NamedParameterJdbcTemplate jdbc, ResourceLoader resourceLoader,
+                                 @Value("${spring.liquibase.change-log:classpath:/db/changelog/db.changelog-master.yaml}") String changeLog,
+                                 @Value("${spring.liquibase.database-change-log-table:databasechangelog}") String changeLogTable,
+                                 @Value("${user.schema.verify:fail}") String mode) {
+        this.jdbc = jdbc;
+        this.resourceLoader = resourceLoader;
+        this.changeLog = changeLog;
+        this.changeLogTable = changeLogTable;
+        this.mode = mode;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if ("off".equalsIgnoreCase(mode)) {
+            return;
+        }
+        List<String> expected = expectedChangeSets();
+        List<String> missing = missingChangeSets(expected);
+        if (missing.isEmpty()) {
+            log.info("Schema is up to date ({} changeSets, latest {})", expected.size(),
+                expected.isEmpty() ? "-" : expected.get(expected.size() - 1));
+            return;
+        }
+        String message = "Database schema is behind the application; missing changeSets " + missing
+            + ". Run the service with the 'migrate' argument first.";
+        if ("warn".equalsIgnoreCase(mode)) {
+            log.warn(message);
+            return;
+        }
+        throw new IllegalStateException(message);
+    }
+
+    /**
+     * @return changeSet ids of {@code expected} not recorded in the changelog table
+     */
+    List<String> missingChangeSets(List<String> expected) {
+        if (expected.isEmpty()) {
+            return List.of();
+        }
+        // changeLogTable comes from configuration, never from input
+        Set<String> applied = new HashSet<>(jdbc.queryForList(
+            "SELECT id FROM " + changeLogTable + " WHERE id IN (:ids)",
+            Map.of("ids", expected), String.class));
+        List<String> missing = new ArrayList<>();
+        for (String id : expected) {
+            if (!applied.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return ids of the changeSets declared in the master changelog, in file order
+     */
+    @SuppressWarnings("unchecked")
+    List<String> expectedChangeSets() throws IOException {
+        try (InputStream in = resourceLoader.getResource(changeLog).getInputStream()) {
+            Map<String, Object> root = new Yaml().load(in);
+            List<String> ids = new ArrayList<>();
+            for (Object entry : (List<Object>) root.getOrDefault("databaseChangeLog", List.of())) {
+                if (entry instanceof Map<?, ?> m && m.get("changeSet") instanceof Map<?, ?> changeSet) {
+                    ids.add(String.valueOf(changeSet.get("id")));
+                }
+            }
+            return ids;
+        }
+    }
+}
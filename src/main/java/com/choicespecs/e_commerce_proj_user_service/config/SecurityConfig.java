@@ -1,5 +1,6 @@
 package com.choicespecs.e_commerce_proj_user_service.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -17,10 +18,14 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests()
-                .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
             .and()
-                .httpBasic();
+                .httpBasic()
+            .and()
+                // Actuator is basic-auth only, no session for a forged request to ride on, so its
+                // POST/DELETE operations (jfr, slowqueries) must not require a CSRF token
+                .csrf().ignoringRequestMatchers(EndpointRequest.toAnyEndpoint());
         return http.build();
     }
 }
@@ -0,0 +1,57 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.repository.ShardRouter;
+import com.choicespecs.e_commerce_proj_user_service.repository.ShardedUserJdbcRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Application-level sharding of users over the databases listed in {@code user.sharding.urls}
+ * (see {@link ShardedUserJdbcRepository}). Off unless {@code user.sharding.enabled=true}.
+ *
+ * <p>The primary {@code spring.datasource} keeps the shard directory, processed message ids and the
+ * Liquibase changelog table; every shard must be migrated with the same changelog.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * One small connection pool per shard, in {@code user.sharding.urls} order.
+     */
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                   @Value("${user.sharding.urls}") List<String> urls,
+                                   @Value("${user.sharding.username:${spring.datasource.username}}") String username,
+                                   @Value("${user.sharding.password:${spring.datasource.password}}") String password,
+                                   @Value("${user.sharding.pool-size:5}") int poolSize) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("user-shard-" + i);
+            ds.setJdbcUrl(urls.get(i).trim());
+            ds.setUsername(username);
+            ds.setPassword(password);
+            ds.setMaximumPoolSize(poolSize);
+            dataSources.add(ds);
+        }
+        return new ShardRouter(dataSources, namedParameterJdbcTemplate);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardedUserJdbcRepository shardedUserJdbcRepository(ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        return new ShardedUserJdbcRepository(shardRouter, meterRegistry);
+    }
+}
@@ -0,0 +1,69 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.ChangesSinceRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceChangesEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceCreatedEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceDeletedEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceGetEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceSearchEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceUpdatedEvent;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
+import com.choicespecs.e_commerce_proj_user_service.model.User;
+
+/**
+ * Reflection and resource hints for the native image (see the {@code native} Maven profile).
+ *
+ * <p>Spring's AOT pass only sees types that appear in bean signatures. The types below are bound
+ * by Jackson at runtime instead: the command DTOs through {@code ObjectMapper.treeToValue}, and
+ * the {@link UserServiceEvent} subclasses through {@code RabbitMQConfig}'s
+ * {@code Jackson2JsonMessageConverter}, which serializes the concrete subclass and writes its class
+ * name to the {@code __TypeId__} header. {@link UserEntity} is registered as well because it is
+ * mapped reflectively both by Spring Data JDBC ({@code UserRepository}) and by the hand-written row
+ * mapper. Liquibase's own classes come from the GraalVM reachability metadata repository; the
+ * changelog and its SQL files are added here as resources.</p>
+ */
+public class UserServiceRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] JSON_TYPES = {
+        UserRequest.class,
+        UserSearchRequest.class,
+        UserFilter.class,
+        ChangesSinceRequest.class,
+        Watermark.class,
+        User.class,
+        FieldChange.class,
+        UserServiceEvent.class,
+        UserServiceCreatedEvent.class,
+        UserServiceUpdatedEvent.class,
+        UserServiceUpdatedEvent.PayloadType.class,
+        UserServiceDeletedEvent.class,
+        UserServiceGetEvent.class,
+        UserServiceSearchEvent.class,
+        UserServiceChangesEvent.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+
+        hints.reflection().registerType(UserEntity.class,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_DECLARED_METHODS,
+            MemberCategory.DECLARED_FIELDS);
+
+        hints.resources()
+            .registerPattern("db/changelog/*.yaml")
+            .registerPattern("db/changelog/*.sql");
+    }
+}
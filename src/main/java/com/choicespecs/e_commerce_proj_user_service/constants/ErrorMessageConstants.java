@@ -20,8 +20,10 @@ public class ErrorMessageConstants {
     public static final String ERROR_UPDATE_USER_FAIL = "Failed to update user";
     public static final String ERROR_GET_USER_FAIL = "Failed to get user";
     public static final String ERROR_SEARCH_USER_FAIL = "Failed to search user";
+    public static final String ERROR_CHANGES_SINCE_FAIL = "Failed to list changed users";
     public static final String ERROR_UNSUPPORTED_ACTION = "Unsupported action: ";
     public static final String ERROR_ACTION_TYPE_NULL = "ActionType cannot be null or blank";
     public static final String ERROR_INVALID_ACTION_TYPE = "Invalid ActionType: ";
     public static final String ERROR_MORE_THAN_ONE_SELECTOR = "Provide exactly one selector";
+    public static final String ERROR_PHONE_SUFFIX_NO_DIGITS = "phoneSuffix must contain digits";
 }
@@ -13,6 +13,14 @@ public class FieldConstants {
     public static final String USER_LAST_NAME_FIELD = "lastName"; 
     public static final String ACTION_FIELD = "action";
     public static final String HEADER_REQUEST_ID_FIELD = "x-request-id";
+    public static final String HEADER_RETRY_ATTEMPT_FIELD = "x-retry-attempt";
+    public static final String HEADER_RETRY_LEVEL_FIELD = "x-retry-level";
+    public static final String HEADER_ORIGINAL_QUEUE_FIELD = "x-original-queue";
+    public static final String HEADER_EXCEPTION_FIELD = "x-exception";
+    public static final String HEADER_PARK_REASON_FIELD = "x-park-reason";
+    public static final String HEADER_CHANGED_FIELDS_FIELD = "x-changed-fields";
+    public static final String HEADER_USER_VERSION_FIELD = "x-user-version";
+    public static final String HEADER_SERVER_TIMING_FIELD = "x-server-timing";
     public static final String JSON_CONTENT_TYPE = "application/json";
 
     public static final String ID_FIELD = "id";
@@ -21,4 +29,5 @@ public class FieldConstants {
     public static final String CREATED_AT_FIELD = "created_at";
     public static final String UPDATED_AT_FIELD = "updated_at";
     public static final String DELETED_FIELD = "deleted";
+    public static final String VERSION_FIELD = "version";
 }
@@ -12,6 +12,32 @@ public class RabbitMQConstants {
     public static final String USER_UPDATED_ROUTING_KEY = "user.updated";
     public static final String USER_READ_ROUTING_KEY = "user.get";
     public static final String USER_SEARCH_ROUTING_KEY = "user.search";
+    public static final String USER_CHANGES_ROUTING_KEY = "user.changes";
     public static final String USER_QUEUE = "user-service-queue";
     public static final String USER_COMMAND_PATTERN = "user.*";
+
+    // Per command-class queues. Routing keys have three words so they never match USER_COMMAND_PATTERN.
+    public static final String USER_WRITE_QUEUE = "user-service-write-queue";
+    public static final String USER_READ_QUEUE = "user-service-read-queue";
+    public static final String USER_SEARCH_QUEUE = "user-service-search-queue";
+    public static final String USER_CREATE_COMMAND_ROUTING_KEY = "user.command.create";
+    public static final String USER_UPDATE_COMMAND_ROUTING_KEY = "user.command.update";
+    public static final String USER_DELETE_COMMAND_ROUTING_KEY = "user.command.delete";
+    public static final String USER_GET_COMMAND_ROUTING_KEY = "user.command.get";
+    public static final String USER_SEARCH_COMMAND_ROUTING_KEY = "user.command.search";
+    public static final String USER_CHANGES_COMMAND_ROUTING_KEY = "user.command.changes";
+
+    // Listener container ids / factories, one per command class plus the legacy queue
+    public static final String LEGACY_LISTENER_ID = "userLegacyCommands";
+    public static final String WRITE_LISTENER_ID = "userWriteCommands";
+    public static final String READ_LISTENER_ID = "userReadCommands";
+    public static final String SEARCH_LISTENER_ID = "userSearchCommands";
+    public static final String WRITE_CONTAINER_FACTORY = "writeListenerContainerFactory";
+    public static final String READ_CONTAINER_FACTORY = "readListenerContainerFactory";
+    public static final String SEARCH_CONTAINER_FACTORY = "searchListenerContainerFactory";
+
+    // Retry topology: TTL queues per attempt level dead-letter back to the originating queue
+    public static final String USER_RETRY_EXCHANGE = "user.retry.exchange";
+    public static final String USER_RETRY_QUEUE_PREFIX = "user-service-retry-";
+    public static final String USER_PARKING_LOT_QUEUE = "user-service-parking-lot";
 }
@@ -0,0 +1,31 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the dispatch of one command in {@code UserServiceListener}.
+ */
+@Name("com.choicespecs.user.Command")
+@Label("User Command")
+@Description("Dispatch of one user-service command, from action parsing to completion")
+@Category({"User Service", "Messaging"})
+@StackTrace(false)
+public class CommandEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Message Id")
+    public String messageId;
+
+    @Label("Request Id")
+    public String requestId;
+}
@@ -0,0 +1,147 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Owns the in-process continuous JFR recording.
+ *
+ * <p>The recording uses the JDK {@code default} settings (low overhead, suitable for production)
+ * plus the service's own {@link CommandEvent}, {@link QueryEvent} and {@link PublishEvent}, and
+ * keeps a rolling window bounded by {@code maxAge}/{@code maxSize} on disk. It is dumped on JVM
+ * exit and on demand to {@code dumpDir}.</p>
+ *
+ * <p>A recording started with {@code -XX:StartFlightRecording} is independent of this one; the
+ * custom events are recorded there too once enabled in its settings.</p>
+ */
+public class ContinuousRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(ContinuousRecording.class);
+
+    private static final String NAME = "user-service-continuous";
+    private static final DateTimeFormatter FILE_STAMP =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Path dumpDir;
+
+    private Recording recording;
+
+    /**
+     * @param maxAge       how much history the rolling recording keeps
+     * @param maxSizeBytes upper bound on the data kept on disk
+     * @param dumpDir      directory receiving dumps
+     */
+    public ContinuousRecording(Duration maxAge, long maxSizeBytes, Path dumpDir) {
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeBytes;
+        this.dumpDir = dumpDir;
+    }
+
+    /**
+     * Starts the recording unless it is already running.
+     *
+     * @return {@code true} if a new recording was started
+     */
+    public synchronized boolean start() {
+        if (isRunning()) {
+            return false;
+        }
+        try {
+            Files.createDirectories(dumpDir);
+            Recording r = new Recording(Configuration.getConfiguration("default"));
+            r.setName(NAME);
+            r.setToDisk(true);
+            r.setMaxAge(maxAge);
+            r.setMaxSize(maxSizeBytes);
+            r.setDumpOnExit(true);
+            r.setDestination(dumpDir.resolve(NAME + ".jfr"));
+            r.enable(CommandEvent.class);
+            r.enable(QueryEvent.class);
+            r.enable(PublishEvent.class);
+            r.start();
+            recording = r;
+            log.info("Started continuous JFR recording (max age {}, dumps to {})", maxAge, dumpDir);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("JDK 'default' JFR settings could not be parsed", e);
+        }
+    }
+
+    /**
+     * Writes the data currently held by the recording to a new timestamped file.
+     *
+     * @return the file written
+     * @throws IllegalStateException if the recording is not running
+     */
+    public synchronized Path dump() {
+        if (!isRunning()) {
+            throw new IllegalStateException("Continuous JFR recording is not running");
+        }
+        Path file = dumpDir.resolve("user-service-" + FILE_STAMP.format(Instant.now()) + ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Dumped continuous JFR recording to {}", file);
+        return file;
+    }
+
+    /**
+     * Stops and discards the recording; a final dump is written first.
+     *
+     * @return the final dump, or {@code null} if nothing was running
+     */
+    public synchronized Path stop() {
+        if (!isRunning()) {
+            return null;
+        }
+        Path file = dump();
+        recording.setDumpOnExit(false);
+        recording.close();
+        recording = null;
+        return file;
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * @return name, state, start time and limits of the recording
+     */
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("maxAge", maxAge.toString());
+        status.put("maxSizeBytes", maxSizeBytes);
+        status.put("dumpDir", dumpDir.toString());
+        if (recording != null) {
+            status.put("name", recording.getName());
+            status.put("state", recording.getState().name());
+            status.put("startTime", recording.getStartTime());
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+}
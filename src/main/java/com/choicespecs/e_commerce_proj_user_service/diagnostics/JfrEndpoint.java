@@ -0,0 +1,47 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * {@code /actuator/jfr}: GET shows the continuous recording's status, {@code POST /start} starts it,
+ * {@code POST /dump} writes the current window to a file and DELETE stops it (after a final dump).
+ */
+@Endpoint(id = "jfr")
+public class JfrEndpoint {
+
+    private final ContinuousRecording recording;
+
+    public JfrEndpoint(ContinuousRecording recording) {
+        this.recording = recording;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return recording.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> control(@Selector String operation) {
+        switch (operation) {
+            case "start":
+                return Map.of("started", recording.start());
+            case "dump":
+                return Map.of("file", recording.dump().toString());
+            default:
+                throw new IllegalArgumentException("Unknown JFR operation: " + operation);
+        }
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        Path file = recording.stop();
+        return Map.of("file", file == null ? "" : file.toString());
+    }
+}
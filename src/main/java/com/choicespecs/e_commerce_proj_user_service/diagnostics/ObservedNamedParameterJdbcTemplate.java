@@ -0,0 +1,190 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link NamedParameterJdbcTemplate} that records statements slower than a threshold.
+ *
+ * <p>Slow statements are added to a {@link SlowQueryLog} with their text and parameter types
+ * (never values). For a sampled fraction of slow SELECTs, {@code EXPLAIN (ANALYZE, BUFFERS)} is
+ * re-run on a single background thread with the same parameters and the plan is attached to the
+ * entry. The explain queue is small and drops work when full, so a burst of slow queries cannot
+ * pile extra load onto the database.</p>
+ *
+ * <p>Statements are observed at the {@link SqlParameterSource} entry points, which the
+ * {@code Map}-based overloads used by the repositories delegate to, as does Spring Data JDBC.</p>
+ *
+ * <h2>Metrics</h2>
+ * {@code user.db.slow{plan=sampled|skipped|dropped}} – slow statements seen.
+ */
+public class ObservedNamedParameterJdbcTemplate extends NamedParameterJdbcTemplate {
+
+    private static final Logger log = LoggerFactory.getLogger(ObservedNamedParameterJdbcTemplate.class);
+
+    private final SlowQueryLog slowQueryLog;
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final ThreadPoolExecutor explainExecutor;
+
+    private final Counter sampled;
+    private final Counter skipped;
+    private final Counter dropped;
+
+    /**
+     * @param jdbc              the classic template that executes statements
+     * @param slowQueryLog      buffer receiving slow statements
+     * @param thresholdMs       statements at or above this duration are recorded
+     * @param explainSampleRate fraction (0..1) of slow SELECTs to capture a plan for
+     * @param meterRegistry     registry for the slow-statement counter
+     */
+    public ObservedNamedParameterJdbcTemplate(JdbcOperations jdbc, SlowQueryLog slowQueryLog, long thresholdMs,
+                                              double explainSampleRate, MeterRegistry meterRegistry) {
+        super(jdbc);
+        this.slowQueryLog = slowQueryLog;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.explainSampleRate = explainSampleRate;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16),
+            r -> {
+                Thread t = new Thread(r, "slow-query-explain");
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.sampled = slowCounter(meterRegistry, "sampled");
+        this.skipped = slowCounter(meterRegistry, "skipped");
+        this.dropped = slowCounter(meterRegistry, "dropped");
+    }
+
+    @Override
+    public <T> T query(String sql, SqlParameterSource paramSource, ResultSetExtractor<T> rse) {
+        return observe(sql, paramSource, () -> super.query(sql, paramSource, rse));
+    }
+
+    @Override
+    public <T> List<T> query(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+        return observe(sql, paramSource, () -> super.query(sql, paramSource, rowMapper));
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+        return observe(sql, paramSource, () -> super.queryForObject(sql, paramSource, rowMapper));
+    }
+
+    @Override
+    public int update(String sql, SqlParameterSource paramSource) {
+        return observe(sql, paramSource, () -> super.update(sql, paramSource));
+    }
+
+    @Override
+    public int update(String sql, SqlParameterSource paramSource, KeyHolder generatedKeyHolder, String[] keyColumnNames) {
+        return observe(sql, paramSource, () -> super.update(sql, paramSource, generatedKeyHolder, keyColumnNames));
+    }
+
+    /**
+     * Stops the explain thread; pending plans are abandoned.
+     */
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private <T> T observe(String sql, SqlParameterSource params, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        long elapsed = System.nanoTime() - start;
+        if (elapsed >= thresholdNanos) {
+            record(sql, params, elapsed, rowCount(result));
+        }
+        return result;
+    }
+
+    private void record(String sql, SqlParameterSource params, long elapsedNanos, Integer rows) {
+        String normalized = sql.trim().replaceAll("\\s+", " ");
+        boolean sample = isSelect(normalized) && ThreadLocalRandom.current().nextDouble() < explainSampleRate;
+        SlowQuery entry = new SlowQuery(Instant.now(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), normalized,
+            parameterTypes(params), rows, sample ? SlowQuery.PlanStatus.PENDING : SlowQuery.PlanStatus.NOT_SAMPLED);
+        slowQueryLog.add(entry);
+        if (!sample) {
+            skipped.increment();
+            return;
+        }
+        try {
+            explainExecutor.execute(() -> explain(entry, sql, params));
+            sampled.increment();
+        } catch (RejectedExecutionException e) {
+            entry.planFailed("explain queue full");
+            dropped.increment();
+        }
+    }
+
+    private void explain(SlowQuery entry, String sql, SqlParameterSource params) {
+        try {
+            // super: the EXPLAIN itself must not be observed (it would always be "slow")
+            List<String> lines = super.query("EXPLAIN (ANALYZE, BUFFERS) " + sql, params,
+                (rs, i) -> rs.getString(1));
+            entry.planCaptured(String.join("\n", lines));
+        } catch (Exception e) {
+            log.debug("Could not capture plan for slow query", e);
+            entry.planFailed(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * EXPLAIN ANALYZE executes the statement, so only plain reads are ever sampled: no DML,
+     * no CTEs (which may modify data) and no locking reads.
+     */
+    private static boolean isSelect(String sql) {
+        return sql.regionMatches(true, 0, "SELECT", 0, 6)
+            && !sql.toUpperCase(Locale.ROOT).contains(" FOR UPDATE");
+    }
+
+    private static Map<String, String> parameterTypes(SqlParameterSource params) {
+        Map<String, String> types = new LinkedHashMap<>();
+        String[] names = params.getParameterNames();
+        if (names == null) {
+            return types;
+        }
+        for (String name : names) {
+            Object value = params.getValue(name);
+            types.put(name, value == null ? "null" : value.getClass().getSimpleName().toLowerCase(Locale.ROOT));
+        }
+        return types;
+    }
+
+    private static Integer rowCount(Object result) {
+        if (result instanceof Collection<?> c) {
+            return c.size();
+        }
+        if (result instanceof Integer updated) {
+            return updated;
+        }
+        return null;
+    }
+
+    private static Counter slowCounter(MeterRegistry registry, String plan) {
+        return Counter.builder("user.db.slow").tag("plan", plan).register(registry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import org.springframework.amqp.core.Message;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one {@code EventPublisher} send.
+ *
+ * <p>The payload size is only known after conversion, so the event in flight is kept on the
+ * sending thread and filled in by {@link #capturePayloadSize(Message)}, registered as a
+ * before-publish post-processor on the {@code RabbitTemplate}.</p>
+ */
+@Name("com.choicespecs.user.Publish")
+@Label("User Event Publish")
+@Description("One event sent by EventPublisher")
+@Category({"User Service", "Messaging"})
+@StackTrace(false)
+public class PublishEvent extends Event {
+
+    private static final ThreadLocal<PublishEvent> IN_FLIGHT = new ThreadLocal<>();
+
+    @Label("Routing Key")
+    public String routingKey;
+
+    @Label("Payload Size")
+    @DataAmount
+    public long payloadBytes;
+
+    /**
+     * Starts timing a send on the current thread.
+     *
+     * @return the started event, or {@code null} when the event type is not being recorded
+     */
+    public static PublishEvent begin(String routingKey) {
+        PublishEvent event = new PublishEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.routingKey = routingKey;
+        event.begin();
+        IN_FLIGHT.set(event);
+        return event;
+    }
+
+    /**
+     * Ends and commits an event returned by {@link #begin(String)}; {@code null} is ignored.
+     */
+    public static void commit(PublishEvent event) {
+        if (event == null) {
+            return;
+        }
+        IN_FLIGHT.remove();
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+
+    /**
+     * Before-publish post-processor: records the converted body size on the send in flight.
+     */
+    public static Message capturePayloadSize(Message message) {
+        PublishEvent event = IN_FLIGHT.get();
+        if (event != null) {
+            event.payloadBytes = message.getBody().length;
+        }
+        return message;
+    }
+}
@@ -0,0 +1,28 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one {@code UserJdbcRepository} query.
+ */
+@Name("com.choicespecs.user.Query")
+@Label("User Query")
+@Description("One UserJdbcRepository query, tagged with the filters present")
+@Category({"User Service", "Database"})
+@StackTrace(false)
+public class QueryEvent extends Event {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Shape")
+    public String shape;
+
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,77 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A statement that exceeded the slow-query threshold.
+ *
+ * <p>Only the statement text (named placeholders, no values) and the Java types of the bound
+ * parameters are kept, so entries never contain user data. {@code plan} is filled in
+ * asynchronously for sampled SELECTs.</p>
+ */
+public class SlowQuery {
+
+    public enum PlanStatus {
+        NOT_SAMPLED,
+        PENDING,
+        CAPTURED,
+        FAILED
+    }
+
+    private final Instant at;
+    private final long durationMs;
+    private final String sql;
+    private final Map<String, String> parameterTypes;
+    private final Integer rows;
+    private volatile PlanStatus planStatus;
+    private volatile String plan;
+
+    public SlowQuery(Instant at, long durationMs, String sql, Map<String, String> parameterTypes, Integer rows,
+                     PlanStatus planStatus) {
+        this.at = at;
+        this.durationMs = durationMs;
+        this.sql = sql;
+        this.parameterTypes = parameterTypes;
+        this.rows = rows;
+        this.planStatus = planStatus;
+    }
+
+    void planCaptured(String plan) {
+        this.plan = plan;
+        this.planStatus = PlanStatus.CAPTURED;
+    }
+
+    void planFailed(String reason) {
+        this.plan = reason;
+        this.planStatus = PlanStatus.FAILED;
+    }
+
+    public Instant getAt() {
+        return at;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public Map<String, String> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public Integer getRows() {
+        return rows;
+    }
+
+    public PlanStatus getPlanStatus() {
+        return planStatus;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+}
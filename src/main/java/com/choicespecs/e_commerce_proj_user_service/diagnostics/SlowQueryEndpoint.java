@@ -0,0 +1,31 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code /actuator/slowqueries}: GET lists the buffered slow statements (newest first, with
+ * sampled {@code EXPLAIN (ANALYZE, BUFFERS)} plans), DELETE clears the buffer.
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog log;
+
+    public SlowQueryEndpoint(SlowQueryLog log) {
+        this.log = log;
+    }
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return log.recent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        log.clear();
+    }
+}
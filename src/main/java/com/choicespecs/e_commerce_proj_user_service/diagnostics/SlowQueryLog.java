@@ -0,0 +1,45 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of the most recent {@link SlowQuery} entries; the oldest entry is dropped
+ * once {@code capacity} is reached.
+ */
+public class SlowQueryLog {
+
+    private final int capacity;
+    private final Deque<SlowQuery> entries;
+
+    public SlowQueryLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Slow query log capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new ArrayDeque<>(capacity);
+    }
+
+    public synchronized void add(SlowQuery query) {
+        if (entries.size() == capacity) {
+            entries.removeFirst();
+        }
+        entries.addLast(query);
+    }
+
+    /**
+     * @return a copy of the buffered entries, newest first
+     */
+    public synchronized List<SlowQuery> recent() {
+        List<SlowQuery> copy = new ArrayList<>(entries);
+        Collections.reverse(copy);
+        return copy;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
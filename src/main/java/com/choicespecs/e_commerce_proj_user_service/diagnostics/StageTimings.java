@@ -0,0 +1,99 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Per-message breakdown of where the time went, collected on the consumer thread.
+ *
+ * <p>The listener opens a timing scope for each command ({@link #begin()}); the repository call,
+ * Jackson parsing and the reply publish add their share through {@link #add(Stage, long)}, which is
+ * a no-op outside a scope. The stages are recorded as histograms when the command completes and,
+ * for GET/SEARCH replies, rendered into the {@code x-server-timing} header using the
+ * Server-Timing syntax ({@code queue;dur=1.250, parse;dur=0.040, db;dur=3.100, ...}, milliseconds).</p>
+ */
+public final class StageTimings {
+
+    public enum Stage {
+        /** Broker timestamp to delivery on the consumer thread. */
+        QUEUE,
+        /** JSON tree to request DTO. */
+        PARSE,
+        /** Repository call, including time spent waiting on a coalesced lookup. */
+        DB,
+        /** Reply event to AMQP message. */
+        SERIALIZE,
+        /** Handing the reply to the broker. */
+        SEND;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final ThreadLocal<StageTimings> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[Stage.values().length];
+    private final boolean[] seen = new boolean[Stage.values().length];
+
+    private StageTimings() {}
+
+    /**
+     * Opens a timing scope on the current thread, replacing any previous one.
+     */
+    public static StageTimings begin() {
+        StageTimings timings = new StageTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * @return the scope open on the current thread, or {@code null}
+     */
+    public static StageTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Closes the scope on the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds {@code elapsedNanos} to {@code stage} of the current scope, if one is open.
+     */
+    public static void add(Stage stage, long elapsedNanos) {
+        StageTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.record(stage, elapsedNanos);
+        }
+    }
+
+    public void record(Stage stage, long elapsedNanos) {
+        nanos[stage.ordinal()] += Math.max(0, elapsedNanos);
+        seen[stage.ordinal()] = true;
+    }
+
+    public boolean has(Stage stage) {
+        return seen[stage.ordinal()];
+    }
+
+    public long nanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    /**
+     * @return the recorded stages in Server-Timing syntax, durations in milliseconds
+     */
+    public String toHeader() {
+        StringJoiner header = new StringJoiner(", ");
+        for (Stage stage : Stage.values()) {
+            if (seen[stage.ordinal()]) {
+                header.add(String.format(Locale.ROOT, "%s;dur=%.3f", stage.label(), nanos[stage.ordinal()] / 1_000_000.0));
+            }
+        }
+        return header.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.choicespecs.e_commerce_proj_user_service.dto;
+
+/**
+ * DTO for the {@code changesSince} request payload.
+ *
+ * <pre>{@code
+ * { "action":"changesSince", "since": { "updatedAt":"2026-01-01T00:00:00.123456Z", "id":"..." }, "limit": 500 }
+ * }</pre>
+ * Omitting {@code since} starts from the beginning. With {@code since.id} omitted, every user
+ * updated at or after {@code since.updatedAt} is returned.
+ */
+public class ChangesSinceRequest {
+
+    private Watermark since;
+    private Integer limit;
+
+    public ChangesSinceRequest() {}
+
+    public ChangesSinceRequest(Watermark since, Integer limit) {
+        this.since = since;
+        this.limit = limit;
+    }
+
+    public Watermark getSince() {
+        return since;
+    }
+
+    public void setSince(Watermark since) {
+        this.since = since;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -12,6 +12,8 @@ public class UserFilter {
     private String phone;
     private String email;
     private String username;
+    /** Trailing digits of the phone number, e.g. the last four a caller reads out to support. */
+    private String phoneSuffix;
 
     public UserFilter() {}
 
@@ -63,5 +65,11 @@ public class UserFilter {
         this.username = username;
     }
 
-    
+    public String getPhoneSuffix() {
+        return phoneSuffix;
+    }
+
+    public void setPhoneSuffix(String phoneSuffix) {
+        this.phoneSuffix = phoneSuffix;
+    }
 }
@@ -1,6 +1,17 @@
 package com.choicespecs.e_commerce_proj_user_service.dto;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
+import com.choicespecs.e_commerce_proj_user_service.model.PhoneNumbers;
 
 /**
  * This is just a generic request for a user
@@ -24,12 +35,50 @@ public class UserRequest {
         this.username = username;
     }
 
-    public void applyTo(UserEntity entity) {
-        if (firstName != null) entity.setFirstName(firstName);
-        if (lastName != null) entity.setLastName(lastName);
-        if (phone != null) entity.setPhone(phone);
-        if (email != null) entity.setEmail(email);
-        if (username != null) entity.setUsername(username);
+    /**
+     * Applies the non-null fields of this request to {@code entity}.
+     * The phone is compared in canonical form, so re-entering the same number with different
+     * formatting is not a change.
+     *
+     * @param entity the user to update in place
+     * @return the fields whose value actually changed, keyed by their JSON field name, in a stable order;
+     *         empty if the request was a no-op
+     */
+    public Map<String, FieldChange> applyTo(UserEntity entity) {
+        Map<String, FieldChange> changes = new LinkedHashMap<>();
+        apply(changes, FieldConstants.USER_FIRST_NAME_FIELD, entity.getFirstName(), firstName, entity::setFirstName);
+        apply(changes, FieldConstants.USER_LAST_NAME_FIELD, entity.getLastName(), lastName, entity::setLastName);
+        apply(changes, FieldConstants.PHONE_FIELD, entity.getPhone(), PhoneNumbers.normalize(phone), entity::setPhone);
+        apply(changes, FieldConstants.EMAIL_FIELD, entity.getEmail(), email, entity::setEmail);
+        apply(changes, FieldConstants.USERNAME_FIELD, entity.getUsername(), username, entity::setUsername);
+        return changes;
+    }
+
+    private static void apply(Map<String, FieldChange> changes, String field, String current, String requested,
+                              Consumer<String> setter) {
+        if (requested == null || Objects.equals(current, requested)) {
+            return;
+        }
+        setter.accept(requested);
+        changes.put(field, new FieldChange(current, requested));
+    }
+
+    /**
+     * Key identifying GET lookups that would run the exact same query.
+     * Only the selector fields take part; blank selectors are ignored just like the repository does,
+     * username/email are case-folded and the phone canonicalized, as the repository matches them.
+     */
+    public List<Object> coalescingKey() {
+        return Arrays.asList(fold(username), fold(email), PhoneNumbers.normalize(blankToNull(phone)));
+    }
+
+    private static String fold(String s) {
+        String v = blankToNull(s);
+        return v == null ? null : v.toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String s) {
+        return (s == null || s.isBlank()) ? null : s;
     }
 
     public String getFirstName() {
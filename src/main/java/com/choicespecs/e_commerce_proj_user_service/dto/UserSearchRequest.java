@@ -1,4 +1,11 @@
 package com.choicespecs.e_commerce_proj_user_service.dto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.choicespecs.e_commerce_proj_user_service.model.PhoneNumbers;
+
 /**
  * DTO for user search request payload
  * @author christopherlee
@@ -25,6 +32,37 @@ public class UserSearchRequest {
         this.includeDeleted = includeDeleted;
     }
 
+    /**
+     * Key identifying SEARCH requests that would run the exact same query.
+     * <p>Mirrors the defaults applied by the repository (page, size, direction, deleted flag)
+     * so that e.g. an omitted page and {@code page=0} coalesce. Values compared
+     * case-insensitively by the query are lowercased.</p>
+     */
+    public List<Object> coalescingKey() {
+        int p = (page != null && page >= 0) ? page : 0;
+        int s = (size != null && size > 0 && size <= 200) ? size : 50;
+        boolean desc = "desc".equalsIgnoreCase(sortDir);
+        boolean deleted = Boolean.TRUE.equals(includeDeleted);
+        boolean hasQ = q != null && !q.isBlank();
+        List<Object> filter = null;
+        if (!hasQ && user != null) {
+            filter = Arrays.asList(
+                lower(user.getUsername()), lower(user.getEmail()),
+                lower(user.getFirstName()), lower(user.getLastName()),
+                PhoneNumbers.normalize(blankToNull(user.getPhone())),
+                blankToNull(user.getPhoneSuffix()) == null ? null : PhoneNumbers.reversedDigits(user.getPhoneSuffix()));
+        }
+        return Arrays.asList(hasQ ? q : null, filter, p, s, sortBy, desc, deleted);
+    }
+
+    private static String blankToNull(String s) {
+        return (s == null || s.isBlank()) ? null : s;
+    }
+
+    private static String lower(String s) {
+        return (s == null || s.isBlank()) ? null : s.toLowerCase(Locale.ROOT);
+    }
+
     public String getQ() {
         return q;
     }
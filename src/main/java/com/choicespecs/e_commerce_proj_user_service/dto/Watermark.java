@@ -0,0 +1,42 @@
+package com.choicespecs.e_commerce_proj_user_service.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Position in the {@code (updated_at, id)} order of users, used by {@code changesSince}.
+ * A consumer stores the {@code next} watermark of each reply and sends it back with its next request.
+ */
+public class Watermark {
+
+    private Instant updatedAt;
+    private UUID id;
+
+    public Watermark() {}
+
+    public Watermark(Instant updatedAt, UUID id) {
+        this.updatedAt = updatedAt;
+        this.id = id;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    @Override
+    public String toString() {
+        return "Watermark{updatedAt=" + updatedAt + ", id=" + id + '}';
+    }
+}
@@ -3,8 +3,10 @@ import java.time.Instant;
 import java.util.UUID;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
+import com.choicespecs.e_commerce_proj_user_service.model.PhoneNumbers;
 import com.choicespecs.e_commerce_proj_user_service.model.User;
 
 /**
@@ -25,6 +27,12 @@ public class UserEntity {
     private boolean deleted;
     private Instant createdAt;
     private Instant updatedAt;
+    /**
+     * Optimistic lock: {@code null} until inserted, then incremented by every update, which only
+     * succeeds if the row still has the version that was read.
+     */
+    @Version
+    private Long version;
 
     public UserEntity() {}
 
@@ -33,7 +41,7 @@ public class UserEntity {
         this.email = email;
         this.firstName = firstName;
         this.lastName = lastName;
-        this.phone = phone;
+        this.phone = PhoneNumbers.normalize(phone);
         this.deleted = deleted;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
@@ -43,7 +51,7 @@ public class UserEntity {
         this.username = user.getUsername();
         this.firstName = user.getFirstName();
         this.lastName = user.getLastName();
-        this.phone = user.getPhone();
+        this.phone = PhoneNumbers.normalize(user.getPhone());
         this.email = user.getEmail();
         this.createdAt = Instant.now();
         this.updatedAt = Instant.now();
@@ -77,8 +85,11 @@ public class UserEntity {
     public String getPhone() {
         return phone;
     }
+    /**
+     * Stores the phone in canonical form, see {@link PhoneNumbers#normalize(String)}.
+     */
     public void setPhone(String phone) {
-        this.phone = phone;
+        this.phone = PhoneNumbers.normalize(phone);
     }
     public boolean isDeleted() {
         return deleted;
@@ -105,9 +116,15 @@ public class UserEntity {
     public void setUsername(String username) {
         this.username = username;
     }
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 
     public User toUser() {
-        return new User(username, email, firstName, lastName, phone);
+        return new User(username, email, phone, firstName, lastName);
     }
 
     @Override
@@ -121,6 +138,7 @@ public class UserEntity {
                 ", deleted=" + deleted +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
     @Override
@@ -1,5 +1,8 @@
 package com.choicespecs.e_commerce_proj_user_service.event;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
@@ -7,9 +10,18 @@ import org.springframework.stereotype.Component;
 import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.PublishEvent;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.StageTimings;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
 import com.choicespecs.e_commerce_proj_user_service.model.ActionType;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 
 /**
  * Publishes domain events from the User Service to RabbitMQ.
@@ -33,6 +45,12 @@ import com.choicespecs.e_commerce_proj_user_service.model.ActionType;
  * <ul>
  *   <li>Ensure your payload types are serializable by the configured message converter.</li>
  *   <li>Consider enabling publisher confirms/returns for delivery guarantees if needed.</li>
+ *   <li>When {@link #enableUpdateCoalescing} is on, {@code user.updated} events are held briefly and
+ *       merged per user by {@link UpdatedEventDebouncer}; all other events are sent immediately.</li>
+ *   <li>Every send is timed as {@code user.event.publish{routing_key}} and emitted as a
+ *       {@link PublishEvent} JFR event carrying the routing key and payload size.</li>
+ *   <li>GET/SEARCH replies can carry an {@code x-server-timing} header with the stage breakdown
+ *       of the command they answer (see {@link StageTimings}).</li>
  * </ul>
  *
  * @author christopherlee
@@ -40,6 +58,9 @@ import com.choicespecs.e_commerce_proj_user_service.model.ActionType;
 @Component
 public class EventPublisher {
     private final RabbitTemplate rabbitTemplate;
+    private UpdatedEventDebouncer updateDebouncer;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private boolean stageTimingHeaders;
 
     /**
      * Creates an {@code EventPublisher}.
@@ -50,6 +71,53 @@ public class EventPublisher {
         this.rabbitTemplate = rabbitTemplate;
     }
 
+    /**
+     * Sets the registry used for publish timings; defaults to {@link Metrics#globalRegistry}.
+     *
+     * @param meterRegistry the application's meter registry
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Enables the {@code x-server-timing} header on GET/SEARCH replies.
+     *
+     * @param stageTimingHeaders whether replies carry the per-stage timings of the command they answer
+     */
+    public void setStageTimingHeaders(boolean stageTimingHeaders) {
+        this.stageTimingHeaders = stageTimingHeaders;
+    }
+
+    /**
+     * Merges {@code user.updated} events for the same user that arrive within {@code windowMs}
+     * of each other into one event carrying the final state.
+     *
+     * @param windowMs      quiet period after the last update before the event is sent
+     * @param maxDelayMs    hard upper bound on how long the first update of a burst may be held
+     * @param meterRegistry registry for the coalescing metrics
+     */
+    public void enableUpdateCoalescing(long windowMs, long maxDelayMs, MeterRegistry meterRegistry) {
+        this.updateDebouncer = new UpdatedEventDebouncer(this::sendUserUpdatedEvent, windowMs, maxDelayMs, meterRegistry);
+    }
+
+    /**
+     * Sends any {@code user.updated} events still held by the coalescing window.
+     */
+    @PreDestroy
+    public void flushPendingEvents() {
+        if (updateDebouncer != null) {
+            updateDebouncer.close();
+        }
+    }
+
+    /**
+     * @return number of {@code user.updated} events currently held by the coalescing window
+     */
+    public int pendingEventCount() {
+        return updateDebouncer != null ? updateDebouncer.pendingCount() : 0;
+    }
+
 
     /**
      * Publishes a user event using a generic action string that is mapped to a routing key.
@@ -62,7 +130,7 @@ public class EventPublisher {
      * @throws IllegalArgumentException if the action is not supported
      */
     public void publishUserEvent(String action, Object payload) {
-        String routingKey;
+        final String routingKey;
         ActionType actionType = ActionType.fromString(action);
         switch (actionType) {
             case CREATE:
@@ -81,7 +149,7 @@ public class EventPublisher {
                 throw new IllegalArgumentException(ErrorMessageConstants.ERROR_UNSUPPORTED_ACTION + action);
         }
 
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, routingKey, payload);
+        timed(routingKey, () -> rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, routingKey, payload));
     }
 
     /**
@@ -91,7 +159,7 @@ public class EventPublisher {
      */
     public void publishUserCreatedEvent(UserEntity user) {
         UserServiceEvent event = new UserServiceCreatedEvent(user);
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_UPDATED_ROUTING_KEY,event);
+        timed(RabbitMQConstants.USER_CREATED_ROUTING_KEY, () -> rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_CREATED_ROUTING_KEY,event));
     }
 
     /**
@@ -100,8 +168,11 @@ public class EventPublisher {
      * @param user the deleted user entity (or a minimal entity carrying identifiers)
      */
     public void publishUserDeletedEvent(UserEntity user) {
+        if (updateDebouncer != null) {
+            updateDebouncer.discard(user.getId());
+        }
         UserServiceEvent event = new UserServiceDeletedEvent(user);
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_DELETED_ROUTING_KEY,event);
+        timed(RabbitMQConstants.USER_DELETED_ROUTING_KEY, () -> rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_DELETED_ROUTING_KEY,event));
     }
 
     /**
@@ -111,7 +182,39 @@ public class EventPublisher {
      */
     public void publishUserUpdatedEvent(UserEntity user) {
         UserServiceEvent event = new UserServiceUpdatedEvent(user);
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_UPDATED_ROUTING_KEY,event);
+        timed(RabbitMQConstants.USER_UPDATED_ROUTING_KEY, () -> rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_UPDATED_ROUTING_KEY,event));
+    }
+
+    /**
+     * Publishes a "user updated" event describing the fields that changed.
+     * Adds {@code x-changed-fields} (comma-separated field names) and {@code x-user-version} headers
+     * so consumers can skip irrelevant updates without parsing the body.
+     * With coalescing enabled the event may be merged with later updates of the same user.
+     *
+     * @param user        the updated user entity, already carrying its new version
+     * @param changes     fields changed by the update, keyed by field name
+     * @param payloadType {@code DELTA} for the changes only, {@code SNAPSHOT} to include the full record
+     */
+    public void publishUserUpdatedEvent(UserEntity user, Map<String, FieldChange> changes,
+                                        UserServiceUpdatedEvent.PayloadType payloadType) {
+        if (updateDebouncer != null && user.getId() != null) {
+            updateDebouncer.submit(user, changes, payloadType);
+        } else {
+            sendUserUpdatedEvent(user, changes, payloadType);
+        }
+    }
+
+    private void sendUserUpdatedEvent(UserEntity user, Map<String, FieldChange> changes,
+                                      UserServiceUpdatedEvent.PayloadType payloadType) {
+        UserServiceUpdatedEvent event = payloadType == UserServiceUpdatedEvent.PayloadType.SNAPSHOT
+            ? UserServiceUpdatedEvent.snapshot(user, changes)
+            : UserServiceUpdatedEvent.delta(user, changes);
+        timed(RabbitMQConstants.USER_UPDATED_ROUTING_KEY, () -> rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_UPDATED_ROUTING_KEY, event, msg -> {
+                msg.getMessageProperties().setHeader(FieldConstants.HEADER_CHANGED_FIELDS_FIELD, String.join(",", changes.keySet()));
+                msg.getMessageProperties().setHeader(FieldConstants.HEADER_USER_VERSION_FIELD, user.getVersion());
+                msg.getMessageProperties().setContentType(FieldConstants.JSON_CONTENT_TYPE);
+                return msg;
+        }));
     }
 
     /**
@@ -123,11 +226,7 @@ public class EventPublisher {
      */
     public void publishUserReadEvent(String requestId, UserEntity user) {
         UserServiceGetEvent event = UserServiceGetEvent.found(requestId, user);
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_READ_ROUTING_KEY, event, msg -> {
-                msg.getMessageProperties().setHeader(FieldConstants.HEADER_REQUEST_ID_FIELD, requestId);
-                msg.getMessageProperties().setContentType(FieldConstants.JSON_CONTENT_TYPE);
-                return msg;
-        });
+        sendReply(RabbitMQConstants.USER_READ_ROUTING_KEY, event, requestId, true);
     }
 
     /**
@@ -137,10 +236,7 @@ public class EventPublisher {
      */
     public void publishUserGetNotFound(String requestId) {
         UserServiceGetEvent event = UserServiceGetEvent.notFound(requestId);
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_READ_ROUTING_KEY, event, msg -> {
-                msg.getMessageProperties().setHeader(FieldConstants.HEADER_REQUEST_ID_FIELD, requestId);
-                return msg;
-        });
+        sendReply(RabbitMQConstants.USER_READ_ROUTING_KEY, event, requestId, false);
     }
 
 
@@ -152,10 +248,7 @@ public class EventPublisher {
      */
     public void publishUserGetError(String requestId, String message) {
         UserServiceGetEvent event = UserServiceGetEvent.error(requestId, message);
-        rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_READ_ROUTING_KEY, event, msg -> {
-                msg.getMessageProperties().setHeader(FieldConstants.HEADER_REQUEST_ID_FIELD, requestId);
-                return msg;
-        });
+        sendReply(RabbitMQConstants.USER_READ_ROUTING_KEY, event, requestId, false);
     }
 
     /**
@@ -170,16 +263,7 @@ public class EventPublisher {
         UserServiceSearchEvent event = UserServiceSearchEvent.success(
             requestId, req, page.getTotalElements(), page.getTotalPages(), page.getContent()
         );
-        rabbitTemplate.convertAndSend(
-            RabbitMQConstants.USER_EXCHANGE,
-            RabbitMQConstants.USER_SEARCH_ROUTING_KEY,
-            event,
-            msg -> {
-                msg.getMessageProperties().setHeader(FieldConstants.HEADER_REQUEST_ID_FIELD, requestId);
-                msg.getMessageProperties().setContentType(FieldConstants.JSON_CONTENT_TYPE);
-                return msg;
-            }
-        );
+        sendReply(RabbitMQConstants.USER_SEARCH_ROUTING_KEY, event, requestId, true);
     }
 
 
@@ -192,16 +276,80 @@ public class EventPublisher {
      */
     public void publishUserSearchError(String requestId, UserSearchRequest req, String message) {
         UserServiceSearchEvent event = UserServiceSearchEvent.error(requestId, req, message);
-        rabbitTemplate.convertAndSend(
-            RabbitMQConstants.USER_EXCHANGE,
-            RabbitMQConstants.USER_SEARCH_ROUTING_KEY,
-            event,
-            msg -> {
+        sendReply(RabbitMQConstants.USER_SEARCH_ROUTING_KEY, event, requestId, true);
+    }
+
+    /**
+     * Publishes a "changes since (success)" event with the changed users and the next watermark.
+     *
+     * @param requestId a correlation identifier associated with the request
+     * @param since     the watermark the request started from, may be {@code null}
+     * @param limit     the effective row limit
+     * @param next      the watermark to continue from
+     * @param hasMore   whether the result was cut at {@code limit}
+     * @param content   changed users in {@code (updatedAt, id)} order
+     */
+    public void publishUserChangesSuccess(String requestId, Watermark since, int limit, Watermark next,
+                                          boolean hasMore, List<UserEntity> content) {
+        UserServiceChangesEvent event = UserServiceChangesEvent.success(requestId, since, limit, next, hasMore, content);
+        sendReply(RabbitMQConstants.USER_CHANGES_ROUTING_KEY, event, requestId, true);
+    }
+
+    /**
+     * Publishes a "changes since (error)" event.
+     *
+     * @param requestId a correlation identifier associated with the request
+     * @param since     the watermark the request started from, may be {@code null}
+     * @param message   an error message describing the failure
+     */
+    public void publishUserChangesError(String requestId, Watermark since, String message) {
+        UserServiceChangesEvent event = UserServiceChangesEvent.error(requestId, since, message);
+        sendReply(RabbitMQConstants.USER_CHANGES_ROUTING_KEY, event, requestId, true);
+    }
+
+    /**
+     * Sends a GET/SEARCH reply carrying the caller's {@code requestId}.
+     *
+     * <p>When the consumer thread has a {@link StageTimings} scope open, the time spent converting the
+     * event is recorded as {@code serialize} and the broker hand-off as {@code send}; the stages known
+     * at that point are attached as {@code x-server-timing} (unless disabled).</p>
+     *
+     * @param json whether to set the JSON content type explicitly
+     */
+    private void sendReply(String routingKey, Object event, String requestId, boolean json) {
+        StageTimings timings = StageTimings.current();
+        long start = System.nanoTime();
+        long[] converted = { start };
+        timed(routingKey, () -> rabbitTemplate.convertAndSend(RabbitMQConstants.USER_EXCHANGE, routingKey, event, msg -> {
                 msg.getMessageProperties().setHeader(FieldConstants.HEADER_REQUEST_ID_FIELD, requestId);
-                msg.getMessageProperties().setContentType(FieldConstants.JSON_CONTENT_TYPE);
+                if (json) {
+                    msg.getMessageProperties().setContentType(FieldConstants.JSON_CONTENT_TYPE);
+                }
+                if (timings != null) {
+                    // The post-processor runs after the converter, so this is the serialization time
+                    converted[0] = System.nanoTime();
+                    timings.record(StageTimings.Stage.SERIALIZE, converted[0] - start);
+                    if (stageTimingHeaders) {
+                        msg.getMessageProperties().setHeader(FieldConstants.HEADER_SERVER_TIMING_FIELD, timings.toHeader());
+                    }
+                }
                 return msg;
-            }
-        );
+        }));
+        if (timings != null) {
+            timings.record(StageTimings.Stage.SEND, System.nanoTime() - converted[0]);
+        }
     }
 
+    private void timed(String routingKey, Runnable send) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PublishEvent event = PublishEvent.begin(routingKey);
+        try {
+            send.run();
+        } finally {
+            PublishEvent.commit(event);
+            sample.stop(Timer.builder("user.event.publish")
+                .tag("routing_key", routingKey)
+                .register(meterRegistry));
+        }
+    }
 }
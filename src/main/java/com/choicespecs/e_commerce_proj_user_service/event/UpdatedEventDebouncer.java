@@ -0,0 +1,191 @@
+package com.choicespecs.e_commerce_proj_user_service.event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Folds bursts of {@code user.updated} events for the same user into a single event.
+ *
+ * <p>An update is held for {@code windowMs}; every further update for the same {@code userId}
+ * within that window is merged into it (first old value, last new value per field) and restarts
+ * the window. A burst is never held longer than {@code maxDelayMs} after its first update, so a
+ * user edited continuously still produces an event at least that often. A delete discards any
+ * pending update for the user, since the delete event supersedes it.</p>
+ *
+ * <p>Pending events live in memory only: an instance that dies inside the window loses them.
+ * Intermediate versions are not published, so consumers see version gaps for folded bursts.</p>
+ *
+ * <h2>Metrics</h2>
+ * <ul>
+ *   <li>{@code user.event.coalesced{reason=merged|superseded}} – updates folded into a later update or dropped by a delete.</li>
+ *   <li>{@code user.event.coalesced.flushes{trigger=quiet|max_delay|shutdown}} – why pending events were published.</li>
+ *   <li>{@code user.event.pending} – users with an update currently held.</li>
+ * </ul>
+ */
+public class UpdatedEventDebouncer {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdatedEventDebouncer.class);
+
+    /**
+     * Receives the merged update once its window closes.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void publish(UserEntity user, Map<String, FieldChange> changes, UserServiceUpdatedEvent.PayloadType payloadType);
+    }
+
+    private static final class Pending {
+        UserEntity user;
+        UserServiceUpdatedEvent.PayloadType payloadType;
+        final Map<String, FieldChange> changes = new LinkedHashMap<>();
+        final long firstNanos;
+        long dueNanos;
+
+        Pending(long firstNanos) {
+            this.firstNanos = firstNanos;
+        }
+    }
+
+    private final Sink sink;
+    private final long windowNanos;
+    private final long maxDelayNanos;
+    private final ConcurrentMap<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter merged;
+    private final Counter superseded;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param sink          publishes the merged event
+     * @param windowMs      quiet period after the last update before the event is published
+     * @param maxDelayMs    upper bound between the first update of a burst and its event
+     * @param meterRegistry registry for the coalescing metrics
+     */
+    public UpdatedEventDebouncer(Sink sink, long windowMs, long maxDelayMs, MeterRegistry meterRegistry) {
+        if (windowMs < 1 || maxDelayMs < windowMs) {
+            throw new IllegalArgumentException("Invalid event coalescing window settings");
+        }
+        this.sink = sink;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "user-event-debouncer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.meterRegistry = meterRegistry;
+        this.merged = Counter.builder("user.event.coalesced").tag("reason", "merged").register(meterRegistry);
+        this.superseded = Counter.builder("user.event.coalesced").tag("reason", "superseded").register(meterRegistry);
+        Gauge.builder("user.event.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Holds an update, merging it into any update already pending for the same user.
+     */
+    public void submit(UserEntity user, Map<String, FieldChange> changes, UserServiceUpdatedEvent.PayloadType payloadType) {
+        long now = System.nanoTime();
+        Pending p = pending.compute(user.getId(), (id, current) -> {
+            Pending next = current;
+            if (next == null) {
+                next = new Pending(now);
+            } else {
+                merged.increment();
+            }
+            next.user = user;
+            next.payloadType = payloadType;
+            merge(next.changes, changes);
+            next.dueNanos = Math.min(now + windowNanos, next.firstNanos + maxDelayNanos);
+            return next;
+        });
+        long delay = Math.max(0, p.dueNanos - now);
+        scheduler.schedule(() -> flushIfDue(user.getId()), delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Drops the update pending for {@code userId}, if any. Called before a delete is published.
+     */
+    public void discard(UUID userId) {
+        if (userId != null && pending.remove(userId) != null) {
+            superseded.increment();
+        }
+    }
+
+    /**
+     * Publishes every pending update immediately and stops the timer thread.
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        for (UUID userId : pending.keySet()) {
+            Pending p = pending.remove(userId);
+            if (p != null) {
+                emit(p, "shutdown");
+            }
+        }
+    }
+
+    /**
+     * @return number of users with an update currently held
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void flushIfDue(UUID userId) {
+        long now = System.nanoTime();
+        Pending[] due = new Pending[1];
+        pending.computeIfPresent(userId, (id, p) -> {
+            if (now - p.dueNanos >= 0) {
+                due[0] = p;
+                return null;
+            }
+            return p;
+        });
+        if (due[0] != null) {
+            emit(due[0], now - due[0].firstNanos >= maxDelayNanos ? "max_delay" : "quiet");
+        }
+    }
+
+    private void emit(Pending p, String trigger) {
+        meterRegistry.counter("user.event.coalesced.flushes", "trigger", trigger).increment();
+        if (p.changes.isEmpty()) {
+            // The burst reverted itself (a -> b -> a); there is nothing for consumers to apply
+            return;
+        }
+        try {
+            sink.publish(p.user, p.changes, p.payloadType);
+        } catch (Exception e) {
+            log.error("Failed to publish coalesced user.updated event for {}", p.user.getId(), e);
+        }
+    }
+
+    private static void merge(Map<String, FieldChange> into, Map<String, FieldChange> changes) {
+        for (Map.Entry<String, FieldChange> e : changes.entrySet()) {
+            FieldChange previous = into.get(e.getKey());
+            String oldValue = previous != null ? previous.getOldValue() : e.getValue().getOldValue();
+            String newValue = e.getValue().getNewValue();
+            if (Objects.equals(oldValue, newValue)) {
+                into.remove(e.getKey());
+            } else {
+                into.put(e.getKey(), new FieldChange(oldValue, newValue));
+            }
+        }
+    }
+}
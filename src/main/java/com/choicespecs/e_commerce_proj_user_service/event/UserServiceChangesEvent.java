@@ -0,0 +1,95 @@
+package com.choicespecs.e_commerce_proj_user_service.event;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+
+/**
+ * Reply to a {@code changesSince} request: the users changed after {@code since}, in
+ * {@code (updatedAt, id)} order, soft-deleted ones included with {@code deleted=true}.
+ *
+ * <p>{@code next} is the watermark to send with the following request; it equals {@code since}
+ * when nothing changed. {@code hasMore} means the reply was cut at {@code limit} and the consumer
+ * can ask again right away.</p>
+ */
+public class UserServiceChangesEvent extends UserServiceEvent {
+    private String type;            // "CHANGES_SUCCESS" | "CHANGES_ERROR"
+    private Instant at;
+    private String requestId;
+
+    private Watermark since;
+    private Integer limit;
+
+    // Results (for success)
+    private Watermark next;
+    private Boolean hasMore;
+    private Integer returnedCount;
+    private List<UserEntity> content;
+
+    // Error (for error)
+    private String error;
+
+    public UserServiceChangesEvent() {
+        super();
+    }
+
+    private UserServiceChangesEvent(String type, String requestId, Watermark since, Integer limit,
+                                    Watermark next, Boolean hasMore, List<UserEntity> content, String error) {
+        super(); // not about a single user
+        setEventId(UUID.randomUUID());
+        setCreatedAt(Instant.now());
+
+        this.type = type;
+        this.at = Instant.now();
+        this.requestId = requestId;
+        this.since = since;
+        this.limit = limit;
+        this.next = next;
+        this.hasMore = hasMore;
+        this.content = content;
+        this.returnedCount = (content == null ? 0 : content.size());
+        this.error = error;
+    }
+
+    public static UserServiceChangesEvent success(String requestId, Watermark since, int limit,
+                                                  Watermark next, boolean hasMore, List<UserEntity> content) {
+        return new UserServiceChangesEvent("CHANGES_SUCCESS", requestId, since, limit, next, hasMore, content, null);
+    }
+
+    public static UserServiceChangesEvent error(String requestId, Watermark since, String message) {
+        return new UserServiceChangesEvent("CHANGES_ERROR", requestId, since, null, null, null, null, message);
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Instant getAt() { return at; }
+    public void setAt(Instant at) { this.at = at; }
+
+    public String getRequestId() { return requestId; }
+    public void setRequestId(String requestId) { this.requestId = requestId; }
+
+    public Watermark getSince() { return since; }
+    public void setSince(Watermark since) { this.since = since; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+
+    public Watermark getNext() { return next; }
+    public void setNext(Watermark next) { this.next = next; }
+
+    public Boolean getHasMore() { return hasMore; }
+    public void setHasMore(Boolean hasMore) { this.hasMore = hasMore; }
+
+    public Integer getReturnedCount() { return returnedCount; }
+    public void setReturnedCount(Integer returnedCount) { this.returnedCount = returnedCount; }
+
+    public List<UserEntity> getContent() { return content; }
+    public void setContent(List<UserEntity> content) { this.content = content; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -8,6 +8,9 @@ import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
 /**
  * Abstract class for events that are published
  * All events should inherit from this
+ *
+ * <p>{@code version} is the user's row version when the event was built. It grows with every
+ * write to the user, so consumers can discard events older than the state they already hold.</p>
  */
 public abstract class UserServiceEvent {
     private UUID eventId;
@@ -15,6 +18,7 @@ public abstract class UserServiceEvent {
     private String email;
     private Instant createdAt;
     private Instant updatedAt;
+    private Long version;
 
     protected UserServiceEvent() {}
 
@@ -25,6 +29,7 @@ public abstract class UserServiceEvent {
         this.email = user.getEmail();
         this.createdAt = user.getCreatedAt();
         this.updatedAt = user.getUpdatedAt();
+        this.version = user.getVersion();
     }
 
     public UUID getEventId() {
@@ -66,5 +71,13 @@ public abstract class UserServiceEvent {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
     
 }
@@ -1,13 +1,91 @@
-
 package com.choicespecs.e_commerce_proj_user_service.event;
+import java.util.Map;
+
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
+import com.choicespecs.e_commerce_proj_user_service.model.User;
 
 /**
- * Event to be published when a user is updated
+ * Event to be published when a user is updated.
+ *
+ * <p>Comes in two shapes, selected by {@link PayloadType}:</p>
+ * <ul>
+ *   <li>{@code DELTA} – only {@code changes} (field name to old/new value) is populated.</li>
+ *   <li>{@code SNAPSHOT} – {@code user} carries the full record; {@code changes} is included when known.</li>
+ * </ul>
+ * {@code version} increases by one with every applied update of the same user, so consumers can
+ * drop stale or replayed events and detect gaps.
  */
 public class UserServiceUpdatedEvent extends UserServiceEvent {
+
+    public enum PayloadType {
+        DELTA,
+        SNAPSHOT;
+
+        public static PayloadType fromString(String value) {
+            return value != null && value.trim().equalsIgnoreCase("snapshot") ? SNAPSHOT : DELTA;
+        }
+    }
+
+    private PayloadType payloadType;
+    private Map<String, FieldChange> changes;
+    private User user;
+
+    protected UserServiceUpdatedEvent() {}
+
+    /**
+     * Full-snapshot event without change information.
+     */
     public UserServiceUpdatedEvent(UserEntity user) {
+        this(user, PayloadType.SNAPSHOT, null);
+    }
+
+    private UserServiceUpdatedEvent(UserEntity user, PayloadType payloadType, Map<String, FieldChange> changes) {
         super(user);
+        this.payloadType = payloadType;
+        this.changes = changes;
+        this.user = payloadType == PayloadType.SNAPSHOT ? user.toUser() : null;
     }
 
+    /**
+     * @param user    the updated user
+     * @param changes fields changed by this update
+     * @return an event carrying only the changed fields
+     */
+    public static UserServiceUpdatedEvent delta(UserEntity user, Map<String, FieldChange> changes) {
+        return new UserServiceUpdatedEvent(user, PayloadType.DELTA, changes);
+    }
+
+    /**
+     * @param user    the updated user
+     * @param changes fields changed by this update, may be {@code null}
+     * @return an event carrying the full record plus the changed fields
+     */
+    public static UserServiceUpdatedEvent snapshot(UserEntity user, Map<String, FieldChange> changes) {
+        return new UserServiceUpdatedEvent(user, PayloadType.SNAPSHOT, changes);
+    }
+
+    public PayloadType getPayloadType() {
+        return payloadType;
+    }
+
+    public void setPayloadType(PayloadType payloadType) {
+        this.payloadType = payloadType;
+    }
+
+    public Map<String, FieldChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, FieldChange> changes) {
+        this.changes = changes;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
 }
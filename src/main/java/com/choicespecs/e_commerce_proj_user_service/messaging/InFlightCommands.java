@@ -0,0 +1,54 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts commands currently being dispatched by {@link UserServiceListener}, so that
+ * {@link ShutdownDrain} can wait for them to finish.
+ */
+@Component
+public class InFlightCommands {
+
+    private final Object lock = new Object();
+    private int count;
+
+    public void begin() {
+        synchronized (lock) {
+            count++;
+        }
+    }
+
+    public void end() {
+        synchronized (lock) {
+            if (--count == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return commands currently in flight
+     */
+    public int count() {
+        synchronized (lock) {
+            return count;
+        }
+    }
+
+    /**
+     * Waits until no command is in flight or {@code deadlineNanos} ({@link System#nanoTime()} based)
+     * has passed.
+     *
+     * @return commands still in flight when returning (0 if idle)
+     */
+    public int awaitIdle(long deadlineNanos) throws InterruptedException {
+        synchronized (lock) {
+            long remaining;
+            while (count > 0 && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+                long millis = Math.max(1, remaining / 1_000_000);
+                lock.wait(millis);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceGetEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceSearchEvent;
+import com.choicespecs.e_commerce_proj_user_service.repository.ShardedUserJdbcRepository;
+import com.choicespecs.e_commerce_proj_user_service.repository.UserJdbcRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Warms the service up before any command is consumed, then starts the listener containers.
+ *
+ * <p>All {@code @RabbitListener} containers are created with {@code auto-startup=false}
+ * ({@code spring.rabbitmq.listener.simple.auto-startup}, which the command-class factories inherit),
+ * so nothing is consumed while this runner works through:</p>
+ * <ol>
+ *   <li>opening pool connections up to the pool's minimum idle size ({@code user.warmup.connections}
+ *       overrides it);</li>
+ *   <li>running the common {@link UserJdbcRepository} query shapes (get by username / email / phone,
+ *       structured search, count) with values that match nothing, often enough for the driver to
+ *       switch them to server-side prepared statements, on the primary and on every shard;</li>
+ *   <li>parsing synthetic commands with the application {@link ObjectMapper} and serializing GET/SEARCH
+ *       replies with the AMQP message converter, so the JIT compiles the per-message paths.</li>
+ * </ol>
+ * <p>Warm-up is best effort and bounded by {@code user.warmup.max-duration}: a failure or timeout is
+ * logged and the containers are started anyway. Until they are started this bean reports
+ * {@code OUT_OF_SERVICE} as the {@code warmup} health contributor, which is part of the
+ * {@code readiness} health group.</p>
+ *
+ * <h2>Metrics</h2>
+ * {@code user.warmup} – time spent warming up before the listeners started.
+ */
+@Component("warmup")
+public class ListenerWarmup implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(ListenerWarmup.class);
+
+    private static final String[] GET_COMMANDS = {
+        "{\"action\":\"get\",\"user\":{\"username\":\"%s\"}}",
+        "{\"action\":\"get\",\"user\":{\"email\":\"%s@warmup.invalid\"}}",
+        "{\"action\":\"get\",\"user\":{\"phone\":\"%s\"}}"
+    };
+    private static final String[] SEARCH_COMMANDS = {
+        "{\"action\":\"search\",\"q\":\"%s\",\"size\":50,\"sortBy\":\"username\"}",
+        "{\"action\":\"search\",\"user\":{\"lastName\":\"%s\"},\"sortBy\":\"createdAt\",\"sortDir\":\"desc\"}",
+        "{\"action\":\"search\",\"user\":{\"email\":\"%s@warmup.invalid\"},\"includeDeleted\":true,\"sortBy\":\"createdAt\"}"
+    };
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final DataSource dataSource;
+    private final UserJdbcRepository userJdbcRepository;
+    private final ShardedUserJdbcRepository shardedRepository;
+    private final ObjectMapper objectMapper;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int connections;
+    private final int queryIterations;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    private volatile boolean listenersStarted;
+
+    public ListenerWarmup(RabbitListenerEndpointRegistry listenerRegistry, DataSource dataSource,
+                          UserJdbcRepository userJdbcRepository,
+                          ObjectProvider<ShardedUserJdbcRepository> shardedRepository, ObjectMapper objectMapper,
+                          Jackson2JsonMessageConverter messageConverter, MeterRegistry meterRegistry,
+                          @Value("${user.warmup.enabled:true}") boolean enabled,
+                          @Value("${user.warmup.connections:0}") int connections,
+                          @Value("${user.warmup.query-iterations:10}") int queryIterations,
+                          @Value("${user.warmup.iterations:2000}") int iterations,
+                          @Value("${user.warmup.max-duration:PT30S}") Duration maxDuration) {
+        this.listenerRegistry = listenerRegistry;
+        this.dataSource = dataSource;
+        this.userJdbcRepository = userJdbcRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.messageConverter = messageConverter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.connections = connections;
+        this.queryIterations = queryIterations;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long deadline = System.nanoTime() + maxDuration.toNanos();
+            try {
+                openConnections();
+                prepareQueries(deadline);
+                exercisePerMessagePaths(deadline);
+            } catch (Exception e) {
+                log.warn("Warm-up failed, starting listeners anyway", e);
+            } finally {
+                long nanos = sample.stop(Timer.builder("user.warmup").register(meterRegistry));
+                log.info("Warm-up finished in {} ms", Duration.ofNanos(nanos).toMillis());
+            }
+        }
+        startListeners();
+    }
+
+    @Override
+    public Health health() {
+        return listenersStarted
+            ? Health.up().build()
+            : Health.outOfService().withDetail("reason", "warming up, listeners not started").build();
+    }
+
+    /**
+     * @return {@code true} once the listener containers have been started
+     */
+    public boolean isListenersStarted() {
+        return listenersStarted;
+    }
+
+    private void startListeners() {
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (!container.isRunning()) {
+                container.start();
+            }
+        }
+        listenersStarted = true;
+        log.info("Started {} listener container(s)", listenerRegistry.getListenerContainers().size());
+    }
+
+    /**
+     * Borrows connections concurrently so the pool has to open them, then returns them all.
+     */
+    void openConnections() throws Exception {
+        int target = connections > 0 ? connections
+            : dataSource instanceof HikariDataSource hikari ? hikari.getMinimumIdle() : 1;
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection c : borrowed) {
+                c.close();
+            }
+        }
+        log.debug("Warm-up opened {} pool connection(s)", borrowed.size());
+    }
+
+    /**
+     * Runs each common query shape {@code queryIterations} times with marker values that match
+     * nothing, so the statements get prepared without reading rows. With sharding on, the shapes
+     * run on every shard too, which also opens each shard pool's first connections.
+     *
+     * <p>Free-text ({@code q}) searches are skipped: no index serves substrings of username or
+     * email, so even a non-matching term would scan the table on every boot.</p>
+     */
+    void prepareQueries(long deadline) throws Exception {
+        List<UserJdbcRepository> repositories = new ArrayList<>();
+        repositories.add(userJdbcRepository);
+        if (shardedRepository != null) {
+            repositories.addAll(shardedRepository.shardReaders());
+        }
+        for (int i = 0; i < queryIterations && System.nanoTime() < deadline; i++) {
+            String marker = "warmup-" + UUID.randomUUID();
+            for (UserJdbcRepository repository : repositories) {
+                for (String command : GET_COMMANDS) {
+                    repository.getUser(parseUser(command.formatted(marker)));
+                }
+                for (String command : SEARCH_COMMANDS) {
+                    UserSearchRequest req = parse(command.formatted(marker), UserSearchRequest.class);
+                    if (req.getQ() == null) {
+                        repository.searchUserPage(req);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses synthetic commands and serializes replies the way the listener and publisher do,
+     * without touching the database or the broker.
+     */
+    void exercisePerMessagePaths(long deadline) throws Exception {
+        Page<UserEntity> sample = new PageImpl<>(List.of(sampleUser()));
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            String requestId = UUID.randomUUID().toString();
+            parseUser(GET_COMMANDS[i % GET_COMMANDS.length].formatted(requestId));
+            UserSearchRequest req = parse(SEARCH_COMMANDS[i % SEARCH_COMMANDS.length].formatted(requestId),
+                UserSearchRequest.class);
+            UserServiceGetEvent reply = i % 2 == 0
+                ? UserServiceGetEvent.found(requestId, sample.getContent().get(0))
+                : UserServiceGetEvent.notFound(requestId);
+            messageConverter.toMessage(reply, new MessageProperties());
+            messageConverter.toMessage(UserServiceSearchEvent.success(requestId, req, sample.getTotalElements(),
+                sample.getTotalPages(), sample.getContent()), new MessageProperties());
+        }
+    }
+
+    /** A fully populated user for the reply serializers; never stored. */
+    private static UserEntity sampleUser() {
+        Instant now = Instant.now();
+        UserEntity user = new UserEntity("warmup@warmup.invalid", "Warm", "Up", "5550100", false, now, now);
+        user.setId(UUID.randomUUID());
+        user.setUsername("warmup");
+        user.setVersion(0L);
+        return user;
+    }
+
+    private <T> T parse(String json, Class<T> type) throws Exception {
+        return objectMapper.treeToValue(objectMapper.readTree(json), type);
+    }
+
+    private UserRequest parseUser(String json) throws Exception {
+        JsonNode node = objectMapper.readTree(json);
+        return objectMapper.treeToValue(node.get(FieldConstants.USER_FIELD), UserRequest.class);
+    }
+}
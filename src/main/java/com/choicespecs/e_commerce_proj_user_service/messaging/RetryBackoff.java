@@ -0,0 +1,38 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+/**
+ * Exponential backoff schedule for command retries.
+ *
+ * <p>Attempt {@code n} (1-based) waits {@code initialDelayMs * multiplier^(n-1)}, capped at
+ * {@code maxDelayMs}. Each attempt level has its own TTL queue, so the schedule is fixed when
+ * the topology is declared.</p>
+ */
+public class RetryBackoff {
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final long maxDelayMs;
+
+    public RetryBackoff(int maxAttempts, long initialDelayMs, double multiplier, long maxDelayMs) {
+        if (maxAttempts < 1 || initialDelayMs < 1 || multiplier < 1 || maxDelayMs < initialDelayMs) {
+            throw new IllegalArgumentException("Invalid retry backoff settings");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMs = initialDelayMs;
+        this.multiplier = multiplier;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param attempt 1-based retry attempt
+     * @return delay in milliseconds before that attempt is redelivered
+     */
+    public long delayFor(int attempt) {
+        double delay = initialDelayMs * Math.pow(multiplier, Math.max(0, attempt - 1));
+        return (long) Math.min(delay, maxDelayMs);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
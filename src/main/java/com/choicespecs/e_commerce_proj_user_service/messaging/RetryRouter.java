@@ -0,0 +1,142 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes failed commands to the delayed-retry queues or the parking lot.
+ *
+ * <p>Retryable failures (transient DB/connection errors) are republished to
+ * {@link RabbitMQConstants#USER_RETRY_EXCHANGE} with an incremented {@code x-retry-attempt};
+ * the TTL queue for that attempt dead-letters the message back to the queue it came from once
+ * its delay has elapsed. The broker holds the message in the meantime, so consumer threads
+ * never sleep and one bad message can't stall the queue.</p>
+ *
+ * <p>Fatal failures (validation, conversion, missing data) and retryable failures that used up
+ * {@link RetryBackoff#getMaxAttempts()} attempts go to {@link RabbitMQConstants#USER_PARKING_LOT_QUEUE}
+ * with the reason and exception attached as headers.</p>
+ *
+ * <h2>Metrics</h2>
+ * {@code user.command.failures{outcome=retry|parked_fatal|parked_exhausted|dropped}}
+ */
+@Component
+public class RetryRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryRouter.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RetryBackoff backoff;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public RetryRouter(RabbitTemplate rabbitTemplate, RetryBackoff backoff, MeterRegistry meterRegistry,
+                       @Value("${user.retry.enabled:true}") boolean enabled) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.backoff = backoff;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Classifies {@code failure} and republishes {@code message} accordingly.
+     *
+     * @param message the inbound message that failed
+     * @param failure the exception raised while handling it
+     */
+    public void route(Message message, Exception failure) {
+        if (!enabled) {
+            count("dropped");
+            return;
+        }
+        MessageProperties props = message.getMessageProperties();
+        String origin = originQueue(props);
+        int attempt = attemptOf(props);
+
+        if (isRetryable(failure) && attempt < backoff.getMaxAttempts()) {
+            int next = attempt + 1;
+            props.setHeader(FieldConstants.HEADER_RETRY_ATTEMPT_FIELD, next);
+            props.setHeader(FieldConstants.HEADER_RETRY_LEVEL_FIELD, String.valueOf(next));
+            props.setHeader(FieldConstants.HEADER_ORIGINAL_QUEUE_FIELD, origin);
+            // Headers exchange ignores the routing key; it is kept so dead-lettering returns the message to origin
+            rabbitTemplate.send(RabbitMQConstants.USER_RETRY_EXCHANGE, origin, message);
+            count("retry");
+            log.warn("Scheduled retry {} of {} for message from {} in {} ms",
+                next, backoff.getMaxAttempts(), origin, backoff.delayFor(next));
+            return;
+        }
+
+        String reason = isRetryable(failure) ? "exhausted" : "fatal";
+        props.setHeader(FieldConstants.HEADER_ORIGINAL_QUEUE_FIELD, origin);
+        props.setHeader(FieldConstants.HEADER_PARK_REASON_FIELD, reason);
+        props.setHeader(FieldConstants.HEADER_EXCEPTION_FIELD, failure.getClass().getName() + ": " + failure.getMessage());
+        rabbitTemplate.send("", RabbitMQConstants.USER_PARKING_LOT_QUEUE, message);
+        count("parked_" + reason);
+        log.error("Parked message from {} after {} attempt(s) ({})", origin, attempt + 1, reason);
+    }
+
+    /**
+     * A failure is retryable when it (or any cause) is a transient database or broker error.
+     * Everything else is treated as fatal: retrying a bad payload only burns throughput.
+     */
+    static boolean isRetryable(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException
+                    || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof AmqpConnectException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static int attemptOf(MessageProperties props) {
+        Object v = props.getHeader(FieldConstants.HEADER_RETRY_ATTEMPT_FIELD);
+        if (v instanceof Number n) {
+            return n.intValue();
+        }
+        if (v != null) {
+            try {
+                return Integer.parseInt(v.toString());
+            } catch (NumberFormatException ignored) {
+                // fall through: treat as first attempt
+            }
+        }
+        return 0;
+    }
+
+    private static String originQueue(MessageProperties props) {
+        Object v = props.getHeader(FieldConstants.HEADER_ORIGINAL_QUEUE_FIELD);
+        if (v != null) {
+            return v.toString();
+        }
+        String consumerQueue = props.getConsumerQueue();
+        return consumerQueue != null ? consumerQueue : RabbitMQConstants.USER_QUEUE;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("user.command.failures", "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,145 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.event.EventPublisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Coordinated shutdown of the command pipeline.
+ *
+ * <p>Runs in a lifecycle phase above {@link RabbitListenerEndpointRegistry}, so it is stopped
+ * first and drives the sequence itself:</p>
+ * <ol>
+ *   <li>stop consuming: every listener container is stopped in parallel, with its shutdown timeout
+ *       raised to the remaining drain time so it waits for the message it is handling instead of
+ *       closing the channel under it (unacked prefetched messages go back to the broker);</li>
+ *   <li>wait for in-flight commands ({@link InFlightCommands}) until {@code user.drain.timeout};</li>
+ *   <li>flush the {@code user.updated} events held by the coalescing window.</li>
+ * </ol>
+ * <p>Publishes are synchronous (no publisher confirms are configured), so once a command has
+ * finished its events are on the broker. The JDBC and AMQP connection pools are closed afterwards by
+ * the context, when their beans are destroyed. Keep {@code user.drain.timeout} below
+ * {@code spring.lifecycle.timeout-per-shutdown-phase}.</p>
+ *
+ * <h2>Metrics</h2>
+ * <ul>
+ *   <li>{@code user.drain.duration} – time from the stop signal until the pipeline was drained.</li>
+ *   <li>{@code user.drain.abandoned} – commands still running at the deadline; their messages are
+ *       redelivered to another instance.</li>
+ *   <li>{@code user.drain.flushed} – coalesced events published during the drain.</li>
+ * </ul>
+ */
+@Component
+public class ShutdownDrain implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ShutdownDrain.class);
+
+    /** Above RabbitListenerEndpointRegistry (Integer.MAX_VALUE - 100): stopped before it. */
+    static final int PHASE = Integer.MAX_VALUE - 50;
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final InFlightCommands inFlightCommands;
+    private final EventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+
+    private final Counter abandoned;
+    private final Counter flushed;
+
+    private volatile boolean running;
+
+    public ShutdownDrain(RabbitListenerEndpointRegistry listenerRegistry, InFlightCommands inFlightCommands,
+                         EventPublisher eventPublisher, MeterRegistry meterRegistry,
+                         @Value("${user.drain.timeout:PT20S}") Duration timeout) {
+        this.listenerRegistry = listenerRegistry;
+        this.inFlightCommands = inFlightCommands;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+        this.abandoned = Counter.builder("user.drain.abandoned").register(meterRegistry);
+        this.flushed = Counter.builder("user.drain.flushed").register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        drain();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Runs the shutdown sequence; returns once drained or when the deadline has passed.
+     */
+    void drain() {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        int stillRunning = 0;
+        try {
+            stopListeners(deadline);
+            stillRunning = inFlightCommands.awaitIdle(deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stillRunning = inFlightCommands.count();
+        } finally {
+            int pending = eventPublisher.pendingEventCount();
+            eventPublisher.flushPendingEvents();
+            long nanos = System.nanoTime() - start;
+            Timer.builder("user.drain.duration").register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+            abandoned.increment(stillRunning);
+            flushed.increment(pending);
+            if (stillRunning > 0) {
+                log.warn("Drain deadline of {} passed with {} command(s) in flight; they will be redelivered",
+                    timeout, stillRunning);
+            }
+            log.info("Drained in {} ms: {} abandoned, {} coalesced event(s) flushed",
+                TimeUnit.NANOSECONDS.toMillis(nanos), stillRunning, pending);
+        }
+    }
+
+    private void stopListeners(long deadline) throws InterruptedException {
+        Collection<MessageListenerContainer> containers = listenerRegistry.getListenerContainers();
+        CountDownLatch stopped = new CountDownLatch(containers.size());
+        long remainingMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        for (MessageListenerContainer container : containers) {
+            if (container instanceof AbstractMessageListenerContainer amlc) {
+                amlc.setShutdownTimeout(remainingMs);
+            }
+            if (container.isRunning()) {
+                container.stop(stopped::countDown);
+            } else {
+                stopped.countDown();
+            }
+        }
+        stopped.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,23 +1,36 @@
 package com.choicespecs.e_commerce_proj_user_service.messaging;
 
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.CommandEvent;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.StageTimings;
+import com.choicespecs.e_commerce_proj_user_service.dto.ChangesSinceRequest;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
 import com.choicespecs.e_commerce_proj_user_service.model.ActionType;
 import com.choicespecs.e_commerce_proj_user_service.model.User;
+import com.choicespecs.e_commerce_proj_user_service.service.MessageDeduplicator;
 import com.choicespecs.e_commerce_proj_user_service.service.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 
 /**
  * RabbitMQ command listener for the User Service.
@@ -25,6 +38,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * <p>This component consumes JSON messages from {@link RabbitMQConstants#USER_QUEUE}
  * and dispatches to {@link UserService} based on an {@code action} field in the payload.</p>
  *
+ * <p>The per-class queues ({@link RabbitMQConstants#USER_WRITE_QUEUE},
+ * {@link RabbitMQConstants#USER_READ_QUEUE}, {@link RabbitMQConstants#USER_SEARCH_QUEUE}) each have
+ * their own listener container and use the same message format and dispatch.</p>
+ *
  * <h2>Expected message formats</h2>
  * <ul>
  *   <li><b>CREATE</b>:
@@ -52,14 +69,28 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  *     { "action":"search", ...criteria... }
  *     }</pre>
  *     Requires header {@code x-request-id}. Calls {@link UserService#searchUser(UserSearchRequest, String)}.</li>
+ *   <li><b>CHANGES_SINCE</b>:
+ *     <pre>{@code
+ *     { "action":"changesSince", "since": { "updatedAt":"...", "id":"..." }, "limit": 500 }
+ *     }</pre>
+ *     Requires header {@code x-request-id}. Calls {@link UserService#changesSince(ChangesSinceRequest, String)}.</li>
  * </ul>
  *
  * <h2>Notes</h2>
  * <ul>
  *   <li>Actions are parsed case-insensitively via {@link ActionType#fromString(String)}.</li>
- *   <li>For GET/SEARCH, a correlation header {@code x-request-id} is mandatory for traceability.</li>
- *   <li>On validation/conversion errors, the listener logs a domain-specific message and returns
- *       (messages are not requeued here; configure DLQ/retry at the container level if desired).</li>
+ *   <li>For GET/SEARCH/CHANGES_SINCE, a correlation header {@code x-request-id} is mandatory for traceability.</li>
+ *   <li>Write commands (CREATE/UPDATE/DELETE) carrying an AMQP {@code message_id} are deduplicated via
+ *       {@link MessageDeduplicator}: a redelivered command is acknowledged without touching the database
+ *       or publishing events again.</li>
+ *   <li>On failure, the listener logs a domain-specific message and hands the message to
+ *       {@link RetryRouter}: transient errors are retried with exponential backoff through delayed-retry
+ *       queues, validation errors and exhausted retries go to the parking-lot queue.</li>
+ *   <li>Every dispatched command is timed as {@code user.command{action, outcome=success|duplicate|failure}},
+ *       and its stages (queue wait, parse, DB, serialize, send) as {@code user.command.stage{action, stage}}
+ *       via {@link StageTimings}.</li>
+ *   <li>Each dispatch is also emitted as a {@link CommandEvent} JFR event, so recordings can line GC and
+ *       lock stalls up with the commands that were running.</li>
  * </ul>
  */
 @Component
@@ -74,6 +105,18 @@ public class UserServiceListener {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MessageDeduplicator messageDeduplicator;
+
+    @Autowired
+    private RetryRouter retryRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InFlightCommands inFlightCommands;
+
     /**
      * Entry point for messages arriving on {@link RabbitMQConstants#USER_QUEUE}.
      *
@@ -81,18 +124,119 @@ public class UserServiceListener {
      * and routes to the corresponding handler. For actions that produce response events
      * (GET/SEARCH), a {@code x-request-id} header is required.</p>
      *
+     * <p>The {@code user.*} binding also matches the events this service publishes itself; those
+     * carry no {@code action} field and are skipped rather than treated as failed commands.</p>
+     *
+     * @param jsonNode the raw JSON payload
+     * @param message  the raw AMQP message (headers, message id, retry bookkeeping)
+     */
+    @RabbitListener(id = RabbitMQConstants.LEGACY_LISTENER_ID, queues = RabbitMQConstants.USER_QUEUE)
+    public void receiveLegacyCommand(@Payload JsonNode jsonNode, Message message) {
+        if (!jsonNode.has(FieldConstants.ACTION_FIELD)) {
+            log.debug("Ignoring non-command message on {}", RabbitMQConstants.USER_QUEUE);
+            return;
+        }
+        onMessage(jsonNode, message);
+    }
+
+    /**
+     * Entry point for {@link RabbitMQConstants#USER_WRITE_QUEUE} (create/update/delete).
+     */
+    @RabbitListener(id = RabbitMQConstants.WRITE_LISTENER_ID, queues = RabbitMQConstants.USER_WRITE_QUEUE,
+                    containerFactory = RabbitMQConstants.WRITE_CONTAINER_FACTORY)
+    public void receiveWriteCommand(@Payload JsonNode jsonNode, Message message) {
+        onMessage(jsonNode, message);
+    }
+
+    /**
+     * Entry point for {@link RabbitMQConstants#USER_READ_QUEUE} (get).
+     */
+    @RabbitListener(id = RabbitMQConstants.READ_LISTENER_ID, queues = RabbitMQConstants.USER_READ_QUEUE,
+                    containerFactory = RabbitMQConstants.READ_CONTAINER_FACTORY)
+    public void receiveReadCommand(@Payload JsonNode jsonNode, Message message) {
+        onMessage(jsonNode, message);
+    }
+
+    /**
+     * Entry point for {@link RabbitMQConstants#USER_SEARCH_QUEUE} (search).
+     */
+    @RabbitListener(id = RabbitMQConstants.SEARCH_LISTENER_ID, queues = RabbitMQConstants.USER_SEARCH_QUEUE,
+                    containerFactory = RabbitMQConstants.SEARCH_CONTAINER_FACTORY)
+    public void receiveSearchCommand(@Payload JsonNode jsonNode, Message message) {
+        onMessage(jsonNode, message);
+    }
+
+    /**
+     * Dispatches a consumed message; failures are handed to {@link RetryRouter}, which either
+     * schedules a delayed retry or parks the message. The original delivery is always acknowledged.
+     */
+    private void onMessage(JsonNode jsonNode, Message message) {
+        MessageProperties props = message.getMessageProperties();
+        Object requestId = props.getHeader(FieldConstants.HEADER_REQUEST_ID_FIELD);
+        StageTimings timings = StageTimings.begin();
+        if (props.getTimestamp() != null) {
+            long waitedMs = System.currentTimeMillis() - props.getTimestamp().getTime();
+            timings.record(StageTimings.Stage.QUEUE, TimeUnit.MILLISECONDS.toNanos(waitedMs));
+        }
+        try {
+            dispatch(jsonNode, requestId == null ? null : requestId.toString(), props.getMessageId());
+        } catch (Exception e) {
+            retryRouter.route(message, e);
+        } finally {
+            StageTimings.end();
+        }
+    }
+
+    /**
+     * Dispatches a command outside of a listener container. Failures are logged, not retried.
+     *
      * @param jsonNode  the raw JSON payload
      * @param requestId optional correlation id (required for GET/SEARCH)
+     * @param messageId optional AMQP message id used to deduplicate write commands
+     */
+    public void receiveMessage(JsonNode jsonNode, String requestId, String messageId) {
+        try {
+            dispatch(jsonNode, requestId, messageId);
+        } catch (Exception e) {
+            // already logged by dispatch
+        }
+    }
+
+    /**
+     * Dispatches a message that carries no AMQP message id (no deduplication).
+     *
+     * @see #receiveMessage(JsonNode, String, String)
+     */
+    public void receiveMessage(JsonNode jsonNode, String requestId) {
+        receiveMessage(jsonNode, requestId, null);
+    }
+
+    /**
+     * Parses the action, applies deduplication for writes and calls the matching handler.
+     *
+     * @throws Exception the handler's failure, after logging a domain-specific message
      */
-    @RabbitListener(queues = RabbitMQConstants.USER_QUEUE)
-    public void receiveMessage(JsonNode jsonNode,
-                               @Header(name=FieldConstants.HEADER_REQUEST_ID_FIELD, required=false) String requestId) {
+    private void dispatch(JsonNode jsonNode, String requestId, String messageId) throws Exception {
+        ActionType action = null;
+        String outcome = "failure";
+        inFlightCommands.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        boolean ownsTimings = StageTimings.current() == null;
+        StageTimings timings = ownsTimings ? StageTimings.begin() : StageTimings.current();
         try {
             if (!jsonNode.has(FieldConstants.ACTION_FIELD)) {
                 throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
             }
-            String actionString = jsonNode.get(FieldConstants.ACTION_FIELD).asText().toLowerCase();
-            ActionType action = ActionType.fromString(actionString);
+            String actionString = jsonNode.get(FieldConstants.ACTION_FIELD).asText().toLowerCase(Locale.ROOT);
+            action = ActionType.fromString(actionString);
+            boolean write = isWrite(action);
+            if (write && messageDeduplicator.isDuplicate(messageId)) {
+                log.info("Acknowledging duplicate {} command, message id {}", action, messageId);
+                outcome = "duplicate";
+                return;
+            }
             switch (action) {
                 case CREATE:
                     createUser(jsonNode);             
@@ -109,10 +253,83 @@ public class UserServiceListener {
                 case SEARCH:
                     searchUser(jsonNode, requestId);
                     break;
+                case CHANGES_SINCE:
+                    changesSince(jsonNode, requestId);
+                    break;
 
             }
+            if (write) {
+                messageDeduplicator.markProcessed(messageId);
+            }
+            outcome = "success";
         } catch (Exception e) {
-            log.error(ErrorMessageConstants.ERROR_PROCESSING_FAIL, e);
+            log.error(failureMessage(action), e);
+            throw e;
+        } finally {
+            String actionTag = action == null ? "unknown" : action.name().toLowerCase(Locale.ROOT);
+            sample.stop(Timer.builder("user.command")
+                .tag("action", actionTag)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+            event.end();
+            if (event.shouldCommit()) {
+                event.action = actionTag;
+                event.outcome = outcome;
+                event.messageId = messageId;
+                event.requestId = requestId;
+                event.commit();
+            }
+            recordStages(actionTag, timings);
+            if (ownsTimings) {
+                StageTimings.end();
+            }
+            inFlightCommands.end();
+        }
+    }
+
+    private void recordStages(String action, StageTimings timings) {
+        for (StageTimings.Stage stage : StageTimings.Stage.values()) {
+            if (timings.has(stage)) {
+                Timer.builder("user.command.stage")
+                    .tag("action", action)
+                    .tag("stage", stage.label())
+                    .register(meterRegistry)
+                    .record(timings.nanos(stage), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * {@code treeToValue} timed as the {@code parse} stage.
+     */
+    private <T> T parse(JsonNode node, Class<T> type) throws JsonProcessingException {
+        long start = System.nanoTime();
+        try {
+            return objectMapper.treeToValue(node, type);
+        } finally {
+            StageTimings.add(StageTimings.Stage.PARSE, System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isWrite(ActionType action) {
+        return action == ActionType.CREATE || action == ActionType.UPDATE || action == ActionType.DELETE;
+    }
+
+    /**
+     * Domain-specific log message for a failed action.
+     */
+    private static String failureMessage(ActionType action) {
+        if (action == null) {
+            return ErrorMessageConstants.ERROR_PROCESSING_FAIL;
+        }
+        switch (action) {
+            case CREATE: return ErrorMessageConstants.ERROR_CREATE_USER_FAIL;
+            case DELETE: return ErrorMessageConstants.ERROR_DELETE_USER_FAIL;
+            case UPDATE: return ErrorMessageConstants.ERROR_UPDATE_USER_FAIL;
+            case GET:    return ErrorMessageConstants.ERROR_GET_USER_FAIL;
+            case SEARCH: return ErrorMessageConstants.ERROR_SEARCH_USER_FAIL;
+            case CHANGES_SINCE: return ErrorMessageConstants.ERROR_CHANGES_SINCE_FAIL;
+            default:     return ErrorMessageConstants.ERROR_PROCESSING_FAIL;
         }
     }
 
@@ -122,17 +339,13 @@ public class UserServiceListener {
      *
      * @param jsonNode incoming message
      */
-    private void createUser(JsonNode jsonNode) {
-        try {
-            if (!jsonNode.has(FieldConstants.USER_FIELD)) {
-                throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
-            }
-            JsonNode userJson = jsonNode.get(FieldConstants.USER_FIELD);
-            User user = objectMapper.treeToValue(userJson, User.class);
-            userService.createUser(user);
-        } catch (Exception e) {
-            log.error(ErrorMessageConstants.ERROR_CREATE_USER_FAIL, e);
+    private void createUser(JsonNode jsonNode) throws Exception {
+        if (!jsonNode.has(FieldConstants.USER_FIELD)) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
         }
+        JsonNode userJson = jsonNode.get(FieldConstants.USER_FIELD);
+        User user = parse(userJson, User.class);
+        userService.createUser(user);
     }
 
     /**
@@ -158,12 +371,8 @@ public class UserServiceListener {
      * @param node incoming message
      */
     private void deleteUser(JsonNode node) {
-        try {
-            String email = requireText(node, FieldConstants.EMAIL_FIELD);
-            userService.deleteUser(email);
-        } catch (Exception e) {
-            log.error(ErrorMessageConstants.ERROR_DELETE_USER_FAIL, e);
-        }
+        String email = requireText(node, FieldConstants.EMAIL_FIELD);
+        userService.deleteUser(email);
     }
 
     /**
@@ -172,18 +381,14 @@ public class UserServiceListener {
      *
      * @param jsonNode incoming message
      */
-    private void updateUser(JsonNode jsonNode) {
-        try {
-            if (!jsonNode.has(FieldConstants.USER_FIELD)) {
-                throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
-            }
-            JsonNode userJson = jsonNode.get(FieldConstants.USER_FIELD);
-            UserRequest request = objectMapper.treeToValue(userJson, UserRequest.class);
-            String username = requireText(userJson, FieldConstants.USERNAME_FIELD);
-            userService.updateUser(username, request);
-        } catch (Exception e) {
-            log.error(ErrorMessageConstants.ERROR_UPDATE_USER_FAIL, e);
+    private void updateUser(JsonNode jsonNode) throws Exception {
+        if (!jsonNode.has(FieldConstants.USER_FIELD)) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
         }
+        JsonNode userJson = jsonNode.get(FieldConstants.USER_FIELD);
+        UserRequest request = parse(userJson, UserRequest.class);
+        String username = requireText(userJson, FieldConstants.USERNAME_FIELD);
+        userService.updateUser(username, request);
     }
 
 
@@ -194,20 +399,16 @@ public class UserServiceListener {
      * @param jsonNode    incoming message
      * @param headerReqId correlation id used by downstream event publisher
      */
-    private void getUser(JsonNode jsonNode, String headerReqId) {
-        try {
-            if (headerReqId == null || headerReqId.isBlank()) {
-                throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_HEADER);
-            }
-            if (!jsonNode.has(FieldConstants.USER_FIELD)) {
-                throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
-            }
-            JsonNode userJson = jsonNode.get(FieldConstants.USER_FIELD);
-            UserRequest request = objectMapper.treeToValue(userJson, UserRequest.class);
-            userService.getUser(request, headerReqId);
-        } catch (Exception e) {
-            log.error(ErrorMessageConstants.ERROR_GET_USER_FAIL, e);
+    private void getUser(JsonNode jsonNode, String headerReqId) throws Exception {
+        if (headerReqId == null || headerReqId.isBlank()) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_HEADER);
+        }
+        if (!jsonNode.has(FieldConstants.USER_FIELD)) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_FIELD);
         }
+        JsonNode userJson = jsonNode.get(FieldConstants.USER_FIELD);
+        UserRequest request = parse(userJson, UserRequest.class);
+        userService.getUser(request, headerReqId);
     }
 
     /**
@@ -217,16 +418,27 @@ public class UserServiceListener {
      * @param jsonNode    incoming message (criteria at the root)
      * @param headerReqId correlation id used by downstream event publisher
      */
-    private void searchUser(JsonNode jsonNode, String headerReqId) {
-        try {
-            if (headerReqId == null || headerReqId.isBlank()) {
-                throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_HEADER);
-            }
-            UserSearchRequest userSearchRequest = objectMapper.treeToValue(jsonNode, UserSearchRequest.class);
-            userService.searchUser(userSearchRequest, headerReqId);
-        } catch (Exception e) {
-            log.error(ErrorMessageConstants.ERROR_SEARCH_USER_FAIL, e);
+    private void searchUser(JsonNode jsonNode, String headerReqId) throws Exception {
+        if (headerReqId == null || headerReqId.isBlank()) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_HEADER);
+        }
+        UserSearchRequest userSearchRequest = parse(jsonNode, UserSearchRequest.class);
+        userService.searchUser(userSearchRequest, headerReqId);
+    }
+
+    /**
+     * Handles {@code changesSince} action (request-response via events).
+     * <p>Requires header {@code x-request-id}. Converts the entire payload to {@link ChangesSinceRequest}.</p>
+     *
+     * @param jsonNode    incoming message (watermark and limit at the root)
+     * @param headerReqId correlation id used by downstream event publisher
+     */
+    private void changesSince(JsonNode jsonNode, String headerReqId) throws Exception {
+        if (headerReqId == null || headerReqId.isBlank()) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MISSING_HEADER);
         }
+        ChangesSinceRequest request = parse(jsonNode, ChangesSinceRequest.class);
+        userService.changesSince(request, headerReqId);
     }
 
 
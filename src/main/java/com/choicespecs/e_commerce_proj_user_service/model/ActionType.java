@@ -4,17 +4,19 @@ import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConsta
 
 /**
  * Enum for the different actions that the User Service Microservice can take 
+ * Actions are matched ignoring case and underscores, so {@code changesSince} is {@link #CHANGES_SINCE}.
  */
 public enum ActionType {
-    CREATE, UPDATE, DELETE, GET, SEARCH;
+    CREATE, UPDATE, DELETE, GET, SEARCH, CHANGES_SINCE;
 
     public static ActionType fromString(String value) {
         if (value == null || value.isBlank()) {
             throw new IllegalArgumentException(ErrorMessageConstants.ERROR_ACTION_TYPE_NULL);
         }
 
+        String key = value.replace("_", "");
         for (ActionType action : ActionType.values()) {
-            if (action.name().equalsIgnoreCase(value)) {
+            if (action.name().replace("_", "").equalsIgnoreCase(key)) {
                 return action;
             }
         }
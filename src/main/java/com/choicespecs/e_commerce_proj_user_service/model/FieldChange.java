@@ -0,0 +1,53 @@
+package com.choicespecs.e_commerce_proj_user_service.model;
+
+import java.util.Objects;
+
+/**
+ * Old and new value of a single user field changed by an update.
+ */
+public class FieldChange {
+    private String oldValue;
+    private String newValue;
+
+    public FieldChange() {}
+
+    public FieldChange(String oldValue, String newValue) {
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public String getOldValue() {
+        return oldValue;
+    }
+
+    public void setOldValue(String oldValue) {
+        this.oldValue = oldValue;
+    }
+
+    public String getNewValue() {
+        return newValue;
+    }
+
+    public void setNewValue(String newValue) {
+        this.newValue = newValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FieldChange)) return false;
+        FieldChange that = (FieldChange) o;
+        return Objects.equals(oldValue, that.oldValue) &&
+                Objects.equals(newValue, that.newValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(oldValue, newValue);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldChange{" + oldValue + " -> " + newValue + '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.choicespecs.e_commerce_proj_user_service.model;
+
+import java.util.regex.Pattern;
+
+/**
+ * Canonical form of phone numbers as stored in {@code users.phone}.
+ *
+ * <p>The canonical form is the number's digits only: separators, spaces, brackets and a leading
+ * {@code +} are dropped, so {@code "555-0100"}, {@code "(555) 0100"} and {@code "555 0100"} are
+ * all stored and looked up as {@code "5550100"}, and an E.164 number such as {@code "+1 555 0100"}
+ * becomes {@code "15550100"}. No country code is inferred. A value without any digits is not a
+ * phone number this class can interpret and is kept as entered (trimmed).</p>
+ *
+ * <p>Migration {@code 006} applies the same rule to existing rows, so Java and SQL agree.</p>
+ */
+public final class PhoneNumbers {
+
+    private static final Pattern PHONE_TEXT = Pattern.compile("[0-9()+\\-.\\s]+");
+
+    private PhoneNumbers() {}
+
+    /**
+     * @param raw phone as entered, may be {@code null}
+     * @return the canonical digits-only form, or {@code null} for {@code null} input
+     */
+    public static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String digits = digits(raw);
+        return digits.isEmpty() ? raw.trim() : digits;
+    }
+
+    /**
+     * Digits of {@code raw} in reverse order, matching the generated {@code phone_rev} column.
+     * A "last N digits" lookup becomes a prefix match on that column: {@code phone_rev LIKE '0010%'}.
+     *
+     * @param raw trailing digits as entered, may contain separators
+     * @return the reversed digits; empty when {@code raw} has none
+     */
+    public static String reversedDigits(String raw) {
+        return new StringBuilder(digits(raw)).reverse().toString();
+    }
+
+    /**
+     * Whether free text reads as (part of) a phone number: at least one digit and otherwise only
+     * phone punctuation ({@code + ( ) - .} and spaces). {@code "555-0100"} does, {@code "john2"} does not.
+     *
+     * @param raw free text, may be {@code null}
+     */
+    public static boolean looksLikePhone(String raw) {
+        return raw != null && PHONE_TEXT.matcher(raw).matches() && !digits(raw).isEmpty();
+    }
+
+    private static String digits(String raw) {
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the {@code processed_messages} table.
+ *
+ * <p>Holds the message ids of commands that were already applied. The table is
+ * intentionally tiny (id + timestamp) and purged by age, so lookups stay on the primary key.</p>
+ */
+@Repository
+public class ProcessedMessageRepository {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ProcessedMessageRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @param messageId AMQP message id
+     * @return {@code true} if the id has been recorded as processed
+     */
+    public boolean exists(String messageId) {
+        Boolean found = jdbc.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM processed_messages WHERE message_id = :id)",
+            Map.of("id", messageId), Boolean.class);
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Records an id as processed; recording the same id twice is a no-op.
+     *
+     * @param messageId AMQP message id
+     */
+    public void insert(String messageId) {
+        jdbc.update(
+            "INSERT INTO processed_messages (message_id) VALUES (:id) ON CONFLICT (message_id) DO NOTHING",
+            Map.of("id", messageId));
+    }
+
+    /**
+     * Deletes ids recorded before {@code cutoff}.
+     *
+     * @return number of rows removed
+     */
+    public int deleteProcessedBefore(Instant cutoff) {
+        return jdbc.update(
+            "DELETE FROM processed_messages WHERE processed_at < :cutoff",
+            Map.of("cutoff", Timestamp.from(cutoff)));
+    }
+
+    /**
+     * @return number of ids currently stored
+     */
+    public long count() {
+        Long n = jdbc.queryForObject("SELECT COUNT(*) FROM processed_messages", Map.of(), Long.class);
+        return n == null ? 0 : n;
+    }
+}
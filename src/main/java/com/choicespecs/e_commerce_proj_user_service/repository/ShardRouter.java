@@ -0,0 +1,143 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Maps users to the Postgres databases ("shards") they live on, for
+ * {@link ShardedUserJdbcRepository}.
+ *
+ * <p>A user's shard is a stable hash (CRC32) of the lowercased username, modulo the number of
+ * shards, so username lookups need no round trip. Ids, emails and phones are resolved through the
+ * {@code user_shard_directory} table in the directory (primary) database, which is kept in step
+ * with every write. The directory's unique index also makes emails unique across all shards.</p>
+ *
+ * <p>The shard list is fixed: changing its size or order re-maps most usernames and requires
+ * moving the data.</p>
+ */
+public class ShardRouter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    /**
+     * Keys resolved through the directory.
+     */
+    public enum Kind {
+        ID,
+        EMAIL,
+        PHONE;
+
+        String column() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final List<DataSource> dataSources;
+    private final List<NamedParameterJdbcTemplate> shards;
+    private final NamedParameterJdbcTemplate directory;
+
+    /**
+     * @param dataSources one per shard, in shard order; closed by {@link #close()} when closeable
+     * @param directory   template on the database holding {@code user_shard_directory}
+     */
+    public ShardRouter(List<DataSource> dataSources, NamedParameterJdbcTemplate directory) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = new ArrayList<>();
+        for (DataSource ds : dataSources) {
+            shards.add(new NamedParameterJdbcTemplate(ds));
+        }
+        this.directory = directory;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public NamedParameterJdbcTemplate shard(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * @param username username in any case
+     * @return the shard holding (or that will hold) the user
+     */
+    public int shardForUsername(String username) {
+        CRC32 crc = new CRC32();
+        crc.update(username.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shards.size());
+    }
+
+    /**
+     * @param key id as text, lowercased email or canonical phone
+     * @return shards holding a user with that key; empty when unknown
+     */
+    public List<Integer> locate(Kind kind, String key) {
+        return directory.queryForList(
+            "SELECT DISTINCT shard FROM user_shard_directory WHERE kind = :kind AND lookup_key = :key",
+            Map.of("kind", kind.column(), "key", key), Integer.class);
+    }
+
+    /**
+     * Records that {@code userId}'s {@code kind} key lives on {@code shard}.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException if the id or email is already taken
+     */
+    public void register(Kind kind, String key, UUID userId, int shard) {
+        if (key == null) {
+            return;
+        }
+        directory.update(
+            "INSERT INTO user_shard_directory (kind, lookup_key, user_id, shard) VALUES (:kind, :key, :userId, :shard)",
+            Map.of("kind", kind.column(), "key", key, "userId", userId, "shard", shard));
+    }
+
+    /**
+     * Removes {@code userId}'s {@code kind} key; unknown keys are ignored.
+     */
+    public void release(Kind kind, String key, UUID userId) {
+        if (key == null) {
+            return;
+        }
+        directory.update(
+            "DELETE FROM user_shard_directory WHERE kind = :kind AND lookup_key = :key AND user_id = :userId",
+            Map.of("kind", kind.column(), "key", key, "userId", userId));
+    }
+
+    /**
+     * Points every key of {@code userId} at {@code shard}, after the user moved.
+     */
+    public void relocate(UUID userId, int shard) {
+        directory.update("UPDATE user_shard_directory SET shard = :shard WHERE user_id = :userId",
+            Map.of("userId", userId, "shard", shard));
+    }
+
+    /**
+     * Closes the shard data sources that are closeable (e.g. connection pools).
+     */
+    @Override
+    public void close() {
+        for (DataSource ds : dataSources) {
+            if (ds instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close shard data source", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.model.PhoneNumbers;
+import com.choicespecs.e_commerce_proj_user_service.repository.ShardRouter.Kind;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * User reads and writes spread over several Postgres databases, used instead of
+ * {@link UserRepository} / {@link UserJdbcRepository} when {@code user.sharding.enabled=true}.
+ *
+ * <ul>
+ *   <li><b>Point operations</b> ({@link #getUser}, {@link #findByUsernameIgnoreCase},
+ *       {@link #findByEmail}, {@link #save}) go to the one shard chosen by {@link ShardRouter}.</li>
+ *   <li><b>Searches</b> scatter to every shard in parallel. Each shard returns its first
+ *       {@code (page + 1) * size} rows in the requested order; the sorted lists are merged and the
+ *       global page is cut from the merged order. Totals are the sum of the shard counts. Deep pages
+ *       therefore cost more per shard than on a single database.</li>
+ * </ul>
+ *
+ * <p>Each shard has the full schema (the same changelog); the directory lives in the primary
+ * database. A write updates the directory first, then the shard, and undoes its directory changes
+ * if the shard write fails. The two are separate transactions, so a crash in between can leave a
+ * directory entry without a row; lookups treat that as not found.</p>
+ *
+ * <p>Merging compares text sort columns with {@link String#compareTo}, which agrees with the
+ * database order under the {@code C} collation. With a linguistic collation, pages sorted by a text
+ * column may differ slightly at shard boundaries from what a single database would return.</p>
+ */
+public class ShardedUserJdbcRepository implements AutoCloseable {
+
+    private static final String SELECT_USER = """
+        SELECT id, first_name, last_name, phone, email, username, deleted, created_at, updated_at, version
+        FROM users
+        WHERE
+        """;
+
+    private static final String INSERT_USER = """
+        INSERT INTO users (id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version)
+        VALUES (:id, :username, :email, :firstName, :lastName, :phone, :deleted, :createdAt, :updatedAt, :version)
+        """;
+
+    private static final String UPDATE_USER = """
+        UPDATE users
+        SET username = :username, email = :email, first_name = :firstName, last_name = :lastName, phone = :phone,
+            deleted = :deleted, updated_at = :updatedAt, version = :version + 1
+        WHERE id = :id AND version = :version
+        """;
+
+    /** Inserts a moved user with the version it gets from the move. */
+    private static final String INSERT_MOVED_USER = """
+        INSERT INTO users (id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version)
+        VALUES (:id, :username, :email, :firstName, :lastName, :phone, :deleted, :createdAt, :updatedAt, :version + 1)
+        """;
+
+    /**
+     * Merge order per external sort key, mirroring {@code UserJdbcRepository.SORT_COLUMNS}
+     * (ascending, nulls last like Postgres).
+     */
+    private static final Map<String, Comparator<UserEntity>> SORT_ORDERS = Map.of(
+        "username",  by(UserEntity::getUsername),
+        "email",     by(UserEntity::getEmail),
+        "firstName", by(UserEntity::getFirstName),
+        "lastName",  by(UserEntity::getLastName),
+        "createdAt", by(UserEntity::getCreatedAt),
+        "updatedAt", by(UserEntity::getUpdatedAt)
+    );
+
+    /** {@code ORDER BY updated_at, id}, see {@link #order(UserSearchRequest)} for the id text. */
+    private static final Comparator<UserEntity> CHANGE_ORDER = Comparator.comparing(UserEntity::getUpdatedAt)
+        .thenComparing(u -> u.getId().toString());
+
+    private final ShardRouter router;
+    private final List<UserJdbcRepository> readers = new ArrayList<>();
+    private final ExecutorService scatter;
+
+    public ShardedUserJdbcRepository(ShardRouter router, MeterRegistry meterRegistry) {
+        this.router = router;
+        for (int i = 0; i < router.shardCount(); i++) {
+            readers.add(new UserJdbcRepository(router.shard(i), meterRegistry));
+        }
+        this.scatter = Executors.newFixedThreadPool(2 * router.shardCount(), r -> {
+            Thread t = new Thread(r, "user-shard-scatter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * One reader per shard, in shard order; lets warm-up run the query shapes on every shard pool.
+     */
+    public List<UserJdbcRepository> shardReaders() {
+        return Collections.unmodifiableList(readers);
+    }
+
+    /**
+     * Same contract as {@link UserJdbcRepository#getUser(UserRequest)}, on the shard holding the user.
+     */
+    public Optional<UserEntity> getUser(UserRequest request) {
+        List<Integer> candidates;
+        int selectors = 0;
+        if (notBlank(request.getUsername())) {
+            candidates = List.of(router.shardForUsername(request.getUsername()));
+            selectors++;
+        } else {
+            candidates = List.of();
+        }
+        if (notBlank(request.getEmail())) {
+            candidates = router.locate(Kind.EMAIL, UserJdbcRepository.fold(request.getEmail()));
+            selectors++;
+        }
+        if (notBlank(request.getPhone())) {
+            candidates = router.locate(Kind.PHONE, PhoneNumbers.normalize(request.getPhone()));
+            selectors++;
+        }
+        if (selectors != 1) throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MORE_THAN_ONE_SELECTOR);
+        for (int shard : candidates) {
+            Optional<UserEntity> found = readers.get(shard).getUser(request);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the user with this username (any case, deleted or not), or {@code null}
+     */
+    public UserEntity findByUsernameIgnoreCase(String username) {
+        int shard = router.shardForUsername(username);
+        return findOne(shard, "username_lc = :username", "username", UserJdbcRepository.fold(username));
+    }
+
+    /**
+     * @return the user with exactly this email (deleted or not), or {@code null}
+     */
+    public UserEntity findByEmail(String email) {
+        for (int shard : router.locate(Kind.EMAIL, email.toLowerCase(Locale.ROOT))) {
+            // Through the shard's claim, as in UserRepository.FIND_BY_EMAIL: email itself is not indexed
+            UserEntity user = findOne(shard,
+                "id = (SELECT user_id FROM user_email_claims WHERE email_lc = lower(:email)) AND email = :email",
+                "email", email);
+            if (user != null) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserts a new user (no id yet) on its username's shard, or updates an existing one. An
+     * update that changes the username to one hashing to another shard moves the row there.
+     *
+     * <p>Updates are optimistic, like {@code @Version} on {@link UserEntity}: they only apply if the
+     * stored version is still the one on {@code user}, and then increment it.</p>
+     *
+     * @return the saved user, with its id and new version assigned
+     * @throws org.springframework.dao.DuplicateKeyException if the username or email is taken
+     * @throws OptimisticLockingFailureException if the user was changed since it was read
+     */
+    public UserEntity save(UserEntity user) {
+        int target = router.shardForUsername(user.getUsername());
+        if (user.getId() == null) {
+            insertNew(user, target);
+            return user;
+        }
+        UUID id = user.getId();
+        int current = router.locate(Kind.ID, id.toString()).stream().findFirst()
+            .orElseThrow(() -> new EmptyResultDataAccessException("User " + id + " is not in the shard directory", 1));
+        UserEntity previous = findOne(current, "id = :id", "id", id);
+        if (previous == null) {
+            throw new EmptyResultDataAccessException("User " + id + " is not on shard " + current, 1);
+        }
+        long version = user.getVersion() == null ? 0L : user.getVersion();
+        if (previous.getVersion() != version) {
+            throw conflict(user);
+        }
+
+        String oldEmail = emailKey(previous);
+        String newEmail = emailKey(user);
+        boolean emailChanged = !Objects.equals(oldEmail, newEmail);
+        boolean phoneChanged = !Objects.equals(previous.getPhone(), user.getPhone());
+        if (emailChanged) router.register(Kind.EMAIL, newEmail, id, current);
+        try {
+            if (phoneChanged) router.register(Kind.PHONE, user.getPhone(), id, current);
+            try {
+                if (current == target) {
+                    if (router.shard(current).update(UPDATE_USER, params(user)) == 0) {
+                        throw conflict(user);
+                    }
+                } else {
+                    router.shard(target).update(INSERT_MOVED_USER, params(user));
+                    MapSqlParameterSource key = new MapSqlParameterSource("id", id).addValue("version", version);
+                    if (router.shard(current).update("DELETE FROM users WHERE id = :id AND version = :version", key) == 0) {
+                        router.shard(target).update("DELETE FROM users WHERE id = :id", key);
+                        throw conflict(user);
+                    }
+                    router.relocate(id, target);
+                }
+            } catch (RuntimeException e) {
+                if (phoneChanged) router.release(Kind.PHONE, user.getPhone(), id);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            if (emailChanged) router.release(Kind.EMAIL, newEmail, id);
+            throw e;
+        }
+        if (emailChanged) router.release(Kind.EMAIL, oldEmail, id);
+        if (phoneChanged) router.release(Kind.PHONE, previous.getPhone(), id);
+        user.setVersion(version + 1);
+        return user;
+    }
+
+    /**
+     * Same contract as {@link UserJdbcRepository#searchUserPage(UserSearchRequest)}, over all shards.
+     */
+    public Page<UserEntity> searchUserPage(UserSearchRequest req) {
+        // Fail once, up front, rather than from every shard's task
+        UserJdbcRepository.validate(req);
+        int page = UserJdbcRepository.pageOf(req);
+        int size = UserJdbcRepository.sizeOf(req);
+        int window = (page + 1) * size;
+
+        List<CompletableFuture<List<UserEntity>>> rows = new ArrayList<>();
+        List<CompletableFuture<Long>> counts = new ArrayList<>();
+        for (UserJdbcRepository reader : readers) {
+            rows.add(CompletableFuture.supplyAsync(() -> reader.searchRows(req, window, 0), scatter));
+            counts.add(CompletableFuture.supplyAsync(() -> reader.countSearch(req), scatter));
+        }
+
+        List<List<UserEntity>> sorted = new ArrayList<>();
+        for (CompletableFuture<List<UserEntity>> f : rows) {
+            sorted.add(join(f));
+        }
+        long total = 0;
+        for (CompletableFuture<Long> f : counts) {
+            total += join(f);
+        }
+        List<UserEntity> merged = merge(sorted, order(req), page * size, size);
+        return new PageImpl<>(merged, PageRequest.of(page, size), total);
+    }
+
+    /**
+     * Same contract as {@link UserJdbcRepository#changesSince(Watermark, int, Duration)}, over all
+     * shards: each returns its first {@code limit} changes and the merge keeps the overall first ones.
+     */
+    public List<UserEntity> changesSince(Watermark since, int limit, Duration settleLag) {
+        List<CompletableFuture<List<UserEntity>>> rows = new ArrayList<>();
+        for (UserJdbcRepository reader : readers) {
+            rows.add(CompletableFuture.supplyAsync(() -> reader.changesSince(since, limit, settleLag), scatter));
+        }
+        List<List<UserEntity>> sorted = new ArrayList<>();
+        for (CompletableFuture<List<UserEntity>> f : rows) {
+            sorted.add(join(f));
+        }
+        return merge(sorted, CHANGE_ORDER, 0, limit);
+    }
+
+    /**
+     * Stops the scatter threads. The shard data sources belong to the {@link ShardRouter}.
+     */
+    @Override
+    public void close() {
+        scatter.shutdownNow();
+    }
+
+    /**
+     * K-way merge of lists each sorted by {@code order}; returns {@code limit} rows after {@code offset}.
+     */
+    static List<UserEntity> merge(List<List<UserEntity>> sorted, Comparator<UserEntity> order, int offset, int limit) {
+        record Head(UserEntity user, Iterator<UserEntity> rest) {}
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sorted.size()), (a, b) -> order.compare(a.user(), b.user()));
+        for (List<UserEntity> list : sorted) {
+            Iterator<UserEntity> it = list.iterator();
+            if (it.hasNext()) {
+                heads.add(new Head(it.next(), it));
+            }
+        }
+        List<UserEntity> page = new ArrayList<>(limit);
+        int skipped = 0;
+        while (!heads.isEmpty() && page.size() < limit) {
+            Head head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(head.user());
+            }
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * The order the shards return rows in: sort column, then id, both in the requested direction.
+     */
+    static Comparator<UserEntity> order(UserSearchRequest req) {
+        // Map.of rejects null keys, so an omitted sortBy has to be defaulted before the lookup
+        Comparator<UserEntity> byColumn = req.getSortBy() == null
+            ? SORT_ORDERS.get("createdAt")
+            : SORT_ORDERS.getOrDefault(req.getSortBy(), SORT_ORDERS.get("createdAt"));
+        Comparator<UserEntity> ascending = byColumn
+            // Postgres orders uuids bytewise, which is the order of their hex text
+            .thenComparing(u -> u.getId().toString());
+        return "desc".equalsIgnoreCase(req.getSortDir()) ? ascending.reversed() : ascending;
+    }
+
+    private void insertNew(UserEntity user, int shard) {
+        UUID id = UUID.randomUUID();
+        user.setId(id);
+        router.register(Kind.ID, id.toString(), id, shard);
+        try {
+            router.register(Kind.EMAIL, emailKey(user), id, shard);
+            try {
+                router.register(Kind.PHONE, user.getPhone(), id, shard);
+                router.shard(shard).update(INSERT_USER, params(user));
+                user.setVersion(0L);
+            } catch (RuntimeException e) {
+                router.release(Kind.PHONE, user.getPhone(), id);
+                router.release(Kind.EMAIL, emailKey(user), id);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            router.release(Kind.ID, id.toString(), id);
+            user.setId(null);
+            throw e;
+        }
+    }
+
+    private UserEntity findOne(int shard, String predicate, String name, Object value) {
+        List<UserEntity> found = router.shard(shard).query(SELECT_USER + predicate + " LIMIT 1",
+            new MapSqlParameterSource(name, value), readers.get(shard).rowMapper());
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private static MapSqlParameterSource params(UserEntity user) {
+        Instant now = Instant.now();
+        return new MapSqlParameterSource()
+            .addValue("id", user.getId())
+            .addValue("username", user.getUsername())
+            .addValue("email", user.getEmail())
+            .addValue("firstName", user.getFirstName())
+            .addValue("lastName", user.getLastName())
+            .addValue("phone", user.getPhone())
+            .addValue("deleted", user.isDeleted())
+            .addValue("createdAt", Timestamp.from(user.getCreatedAt() != null ? user.getCreatedAt() : now))
+            .addValue("updatedAt", Timestamp.from(user.getUpdatedAt() != null ? user.getUpdatedAt() : now))
+            .addValue("version", user.getVersion() != null ? user.getVersion() : 0L);
+    }
+
+    private static OptimisticLockingFailureException conflict(UserEntity user) {
+        return new OptimisticLockingFailureException(
+            "User " + user.getId() + " changed since version " + user.getVersion() + " was read");
+    }
+
+    private static String emailKey(UserEntity user) {
+        return user.getEmail() == null ? null : user.getEmail().toLowerCase(Locale.ROOT);
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<UserEntity> by(Function<UserEntity, T> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean notBlank(String s) {
+        return s != null && !s.isBlank();
+    }
+}
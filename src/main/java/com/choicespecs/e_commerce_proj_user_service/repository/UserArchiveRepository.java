@@ -0,0 +1,51 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository moving soft-deleted users from {@code users} to {@code users_archive}.
+ *
+ * <p>A batch is a single statement, and so a single short transaction: the candidate rows are
+ * locked with {@code FOR UPDATE SKIP LOCKED}, deleted from {@code users} and inserted into the
+ * archive together. Rows locked by a concurrent writer (or by another instance's mover) are
+ * skipped rather than waited for, and a user is never visible in both tables or in neither.</p>
+ */
+@Repository
+public class UserArchiveRepository {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    private static final String MOVE_BATCH = """
+        WITH moved AS (
+            DELETE FROM users
+            WHERE id IN (
+                SELECT id FROM users
+                WHERE deleted = true AND updated_at < :cutoff
+                ORDER BY updated_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version
+        )
+        INSERT INTO users_archive (id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version)
+        SELECT id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version
+        FROM moved
+        """;
+
+    public UserArchiveRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Moves up to {@code limit} users soft-deleted (last updated) before {@code cutoff}, oldest first.
+     *
+     * @return number of users moved
+     */
+    public int moveBatch(Instant cutoff, int limit) {
+        return jdbc.update(MOVE_BATCH, Map.of("cutoff", Timestamp.from(cutoff), "limit", limit));
+    }
+}
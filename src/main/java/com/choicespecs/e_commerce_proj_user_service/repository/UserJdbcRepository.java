@@ -1,9 +1,16 @@
 package com.choicespecs.e_commerce_proj_user_service.repository;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -14,9 +21,16 @@ import org.springframework.stereotype.Repository;
 
 import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.QueryEvent;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.model.PhoneNumbers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * JDBC-based read/search repository for the {@code users} table.
@@ -32,6 +46,8 @@ import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
  *   <li><b>searchUserPage</b>: filtered search (free-text {@code q} or structured fields)
  *       with allow-listed sorting and pagination.</li>
  *   <li><b>countSearch</b>: count the total rows matching the same filters (for pagination).</li>
+ *   <li><b>changesSince</b>: users changed after a {@code (updated_at, id)} watermark, deleted
+ *       ones included, for consumers keeping a replica in sync.</li>
  * </ul>
  *
  * <h2>Safety & correctness</h2>
@@ -40,19 +56,27 @@ import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
  *   <li><b>Allow-listed sort columns</b> avoid arbitrary ORDER BY injection.</li>
  *   <li><b>LIKE escaping</b> for {@code _}, {@code %}, and {@code \\} ensures user input
  *       can’t change pattern semantics.</li>
- *   <li>Case-insensitive matches are implemented with {@code LOWER(column)} and lowercased params.</li>
+ *   <li>Case-insensitive matches compare the generated {@code *_lc} columns (see changeset 005) with
+ *       parameters lowercased in Java using {@link Locale#ROOT}, so no {@code LOWER(...)} appears in
+ *       predicates and the indexes on those columns apply.</li>
  * </ul>
+ *
+ * <h2>Metrics</h2>
+ * Every query is timed as {@code user.db.query{query=get|search|count|changes, shape}}, where {@code shape}
+ * names the filters that were present (e.g. {@code email}, {@code q}, {@code firstName+lastName}),
+ * so slow query shapes can be told apart without logging SQL. The same query, shape and the number
+ * of rows returned are emitted as a {@code com.choicespecs.user.Query} JFR event.
  */
 @Repository
 public class UserJdbcRepository {
     private final NamedParameterJdbcTemplate jdbc;
+    private final MeterRegistry meterRegistry;
 
 
     /**
-     * Base SELECT list; includes a {@code WHERE 1=1} so callers can freely append {@code AND ...} clauses.
-     * <p><b>Note:</b> Using {@code WHERE 1=1} simplifies dynamic query building.</p>
+     * Column list shared by the live and archive tables, which have identical columns.
      */
-    private static final String SELECT_BASE = """
+    private static final String SELECT_COLUMNS = """
         SELECT
             id,
             first_name,
@@ -62,19 +86,39 @@ public class UserJdbcRepository {
             username,
             deleted,
             created_at,
-            updated_at
+            updated_at,
+            version
+        """;
+
+    /**
+     * Base SELECT list; includes a {@code WHERE 1=1} so callers can freely append {@code AND ...} clauses.
+     * <p><b>Note:</b> Using {@code WHERE 1=1} simplifies dynamic query building.</p>
+     */
+    private static final String SELECT_BASE = SELECT_COLUMNS + """
         FROM users
         WHERE 1=1
         """;
+
+    /**
+     * Same as {@link #SELECT_BASE} over {@code users_archive}, where {@code UserArchiver} moves
+     * long-deleted users. Only searches with {@code includeDeleted=true} read it.
+     */
+    private static final String SELECT_ARCHIVE_BASE = SELECT_COLUMNS + """
+        FROM users_archive
+        WHERE 1=1
+        """;
     
-    public UserJdbcRepository(NamedParameterJdbcTemplate jdbc) {
+    public UserJdbcRepository(NamedParameterJdbcTemplate jdbc, MeterRegistry meterRegistry) {
         this.jdbc = jdbc;
+        this.meterRegistry = meterRegistry;
     }
 
 
     /**
      * Allow-list for external sort keys to physical column names.
-     * <p>Prevents arbitrary ORDER BY injection; unknown keys fall back to {@code created_at}.</p>
+     * <p>Prevents arbitrary ORDER BY injection; unknown keys fall back to {@code created_at}.
+     * Every column here has a {@code (column, id) WHERE deleted = false} index (changeset 007);
+     * keep the two in sync.</p>
      */
     private static final Map<String, String> SORT_COLUMNS = Map.of(
         "username",   "username",
@@ -90,7 +134,8 @@ public class UserJdbcRepository {
      * Maps an external sort key to a known column; defaults to {@code created_at}.
      */
     private String resolveSortBy(String sortBy) {
-        return SORT_COLUMNS.getOrDefault(sortBy, "created_at");
+        // Map.of rejects null keys, so an omitted sortBy must not reach getOrDefault
+        return sortBy == null ? "created_at" : SORT_COLUMNS.getOrDefault(sortBy, "created_at");
     }
 
     /**
@@ -101,6 +146,14 @@ public class UserJdbcRepository {
         return "desc".equalsIgnoreCase(sortDir) ? "DESC" : "ASC";
     }
 
+    /**
+     * Case-folds a value for comparison with the {@code *_lc} columns. {@link Locale#ROOT} keeps the
+     * result independent of the JVM's default locale (e.g. Turkish dotted/dotless i).
+     */
+    static String fold(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
     private boolean notBlank(String s) {
         return s != null && !s.isBlank();
     }
@@ -109,7 +162,7 @@ public class UserJdbcRepository {
      * Escapes a value used with SQL LIKE to treat special characters literally.
      * <p>Escapes: {@code \\}, {@code _}, and {@code %}. Must pair with {@code ESCAPE '\\'} in SQL.</p>
      */
-    private String escapeLike(String s) {
+    String escapeLike(String s) {
         return s.replace("\\", "\\\\")
                 .replace("_", "\\_")
                 .replace("%", "\\%");
@@ -133,26 +186,30 @@ public class UserJdbcRepository {
         Map<String, Object> p = new HashMap<>();
         sql.append(" AND deleted = false");
         int selectors = 0;
+        String shape = "none";
         if (notBlank(request.getUsername())) {
-            sql.append(" AND LOWER(username) = :username");
-            p.put(FieldConstants.USERNAME_FIELD, request.getUsername());
+            sql.append(" AND username_lc = :username");
+            p.put(FieldConstants.USERNAME_FIELD, fold(request.getUsername()));
+            shape = FieldConstants.USERNAME_FIELD;
             selectors++;
         }
         if (notBlank(request.getEmail())) {
-            sql.append(" AND LOWER(email) = :email");
-            p.put(FieldConstants.EMAIL_FIELD, request.getEmail());
+            sql.append(" AND email_lc = :email");
+            p.put(FieldConstants.EMAIL_FIELD, fold(request.getEmail()));
+            shape = FieldConstants.EMAIL_FIELD;
             selectors++;
         }
 
         if (notBlank(request.getPhone())) {
             sql.append(" AND phone = :phone");
-            p.put(FieldConstants.PHONE_FIELD, request.getPhone());
+            p.put(FieldConstants.PHONE_FIELD, PhoneNumbers.normalize(request.getPhone()));
+            shape = FieldConstants.PHONE_FIELD;
             selectors++;
         }
 
         if (selectors != 1) throw new IllegalArgumentException(ErrorMessageConstants.ERROR_MORE_THAN_ONE_SELECTOR);
         sql.append(" LIMIT 1");
-        List<UserEntity> list = jdbc.query(sql.toString(), p, rowMapper());
+        List<UserEntity> list = timed("get", shape, () -> jdbc.query(sql.toString(), p, rowMapper()));
         return list.isEmpty() ? Optional.empty() : Optional.of(list.get(0));
     }
 
@@ -161,7 +218,7 @@ public class UserJdbcRepository {
      * Maps a result-set row to a {@link UserEntity}.
      * <p>Assumes non-null timestamps; guard if your schema allows nulls.</p>
      */
-    private RowMapper<UserEntity> rowMapper() {
+    RowMapper<UserEntity> rowMapper() {
         return (rs, i) -> {
             UserEntity e = new UserEntity();
             e.setId(rs.getObject(FieldConstants.ID_FIELD, java.util.UUID.class));
@@ -173,25 +230,58 @@ public class UserJdbcRepository {
             e.setDeleted(rs.getBoolean(FieldConstants.DELETED_FIELD));
             e.setCreatedAt(rs.getTimestamp(FieldConstants.CREATED_AT_FIELD).toInstant());
             e.setUpdatedAt(rs.getTimestamp(FieldConstants.UPDATED_AT_FIELD).toInstant());
+            e.setVersion(rs.getLong(FieldConstants.VERSION_FIELD));
             return e;
         };
     }
     
+    /**
+     * The reversed digits of the filter's {@code phoneSuffix}, or {@code null} when there is none.
+     *
+     * @throws IllegalArgumentException if the suffix has no digits: {@code phone_rev LIKE '%'} would
+     *                                  match every user instead of none
+     */
+    static String phoneSuffixDigits(UserFilter f) {
+        if (f.getPhoneSuffix() == null || f.getPhoneSuffix().isBlank()) {
+            return null;
+        }
+        String reversed = PhoneNumbers.reversedDigits(f.getPhoneSuffix());
+        if (reversed.isEmpty()) {
+            throw new IllegalArgumentException(ErrorMessageConstants.ERROR_PHONE_SUFFIX_NO_DIGITS);
+        }
+        return reversed;
+    }
+
+    /**
+     * Rejects search requests whose filters cannot be applied, before any query runs.
+     *
+     * @throws IllegalArgumentException see {@link #phoneSuffixDigits}
+     */
+    static void validate(UserSearchRequest req) {
+        if ((req.getQ() == null || req.getQ().isBlank()) && req.getUser() != null) {
+            phoneSuffixDigits(req.getUser());
+        }
+    }
+
     /**
      * Appends WHERE filters for search operations.
      * <ul>
      *   <li>If {@code includeDeleted} is not {@code true}, enforces {@code deleted = false}.</li>
      *   <li>If {@code q} is present, applies a case-insensitive OR across username, email, first/last name,
-     *       plus a phone LIKE (no lowercasing for phone).</li>
+     *       plus, when {@code q} reads as a phone number ({@link PhoneNumbers#looksLikePhone}), a match on
+     *       the phone ending in those digits.</li>
      *   <li>Otherwise, applies structured filters from {@code req.user} (exact matches for username/email/phone,
-     *       LIKE for first/last name).</li>
+     *       LIKE for first/last name, trailing-digits match for {@code phoneSuffix}).</li>
      * </ul>
+     * <p>A {@code phoneSuffix} without any digits is rejected, see {@link #phoneSuffixDigits}.</p>
+     * <p>Phone values are canonicalized with {@link PhoneNumbers}. Trailing-digit matches are prefix
+     * matches on the generated {@code phone_rev} column, which its {@code text_pattern_ops} index serves.</p>
      *
-     * @param sql the SQL builder (already contains {@code WHERE 1=1})
+     * @param sql the SQL builder (already contains {@code WHERE 1=1}, or is the bare predicate suffix)
      * @param p   the parameter map to populate
      * @param req the search request
      */
-    private void appendFilters(StringBuilder sql, Map<String, Object> p, UserSearchRequest req) {
+    void appendFilters(StringBuilder sql, Map<String, Object> p, UserSearchRequest req) {
         boolean includeDeleted = Boolean.TRUE.equals(req.getIncludeDeleted());
         if (!includeDeleted) {
             sql.append(" AND deleted = false");
@@ -199,55 +289,71 @@ public class UserJdbcRepository {
 
         boolean hasQ = notBlank(req.getQ());
         if (hasQ) {
-            String qp = "%" + escapeLike(req.getQ().toLowerCase()) + "%";
+            String qp = "%" + escapeLike(fold(req.getQ())) + "%";
+            // Only phone-shaped text searches phones; "john2" must not match every phone ending in 2
+            String qPhoneRev = PhoneNumbers.looksLikePhone(req.getQ()) ? PhoneNumbers.reversedDigits(req.getQ()) : "";
             sql.append("""
                 AND (
-                    LOWER(username)     LIKE :q ESCAPE '\\'
-                    OR LOWER(email)     LIKE :q ESCAPE '\\'
-                    OR LOWER(first_name) LIKE :q ESCAPE '\\'
-                    OR LOWER(last_name)  LIKE :q ESCAPE '\\'
-                    OR phone            LIKE :q_phone ESCAPE '\\'
-                )
+                    username_lc      LIKE :q ESCAPE '\\'
+                    OR email_lc      LIKE :q ESCAPE '\\'
+                    OR first_name_lc LIKE :q ESCAPE '\\'
+                    OR last_name_lc  LIKE :q ESCAPE '\\'
             """);
+            if (!qPhoneRev.isEmpty()) {
+                sql.append(" OR phone_rev LIKE :q_phone_rev");
+                p.put("q_phone_rev", qPhoneRev + "%");
+            }
+            sql.append(")");
             p.put("q", qp);
-            p.put("q_phone", "%" + escapeLike(req.getQ()) + "%");
         } else if (req.getUser() != null) {
             var f = req.getUser();
             if (notBlank(f.getUsername())) {
-                sql.append(" AND LOWER(username) = LOWER(:username)");
-                p.put("username", f.getUsername());
+                sql.append(" AND username_lc = :username");
+                p.put("username", fold(f.getUsername()));
             }
             if (notBlank(f.getEmail())) {
-                sql.append(" AND LOWER(email) = LOWER(:email)");
-                p.put("email", f.getEmail());
+                sql.append(" AND email_lc = :email");
+                p.put("email", fold(f.getEmail()));
             }
             if (notBlank(f.getFirstName())) {
-                sql.append(" AND LOWER(first_name) LIKE :firstName ESCAPE '\\'");
-                p.put("firstName", "%" + escapeLike(f.getFirstName().toLowerCase()) + "%");
+                sql.append(" AND first_name_lc LIKE :firstName ESCAPE '\\'");
+                p.put("firstName", "%" + escapeLike(fold(f.getFirstName())) + "%");
             }
             if (notBlank(f.getLastName())) {
-                sql.append(" AND LOWER(last_name) LIKE :lastName ESCAPE '\\'");
-                p.put("lastName", "%" + escapeLike(f.getLastName().toLowerCase()) + "%");
+                sql.append(" AND last_name_lc LIKE :lastName ESCAPE '\\'");
+                p.put("lastName", "%" + escapeLike(fold(f.getLastName())) + "%");
             }
             if (notBlank(f.getPhone())) {
                 sql.append(" AND phone = :phone");
-                p.put("phone", f.getPhone());
+                p.put("phone", PhoneNumbers.normalize(f.getPhone()));
+            }
+            String phoneSuffixRev = phoneSuffixDigits(f);
+            if (phoneSuffixRev != null) {
+                // Reversed digits only: no LIKE wildcards can survive, so no ESCAPE is needed
+                sql.append(" AND phone_rev LIKE :phoneSuffix");
+                p.put("phoneSuffix", phoneSuffixRev + "%");
             }
         }
     }
 
 
     /**
-     * Counts rows matching {@code UserSearchRequest} filters.
+     * Counts rows matching {@code UserSearchRequest} filters, including archived users when
+     * {@code includeDeleted} is {@code true}.
      *
      * @param req the search request
      * @return total number of matching rows
      */
     public long countSearch(UserSearchRequest req) {
-        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM users WHERE 1=1");
+        StringBuilder where = new StringBuilder();
         Map<String, Object> p = new HashMap<>();
-        appendFilters(sql, p, req);
-        return jdbc.queryForObject(sql.toString(), p, Long.class);
+        appendFilters(where, p, req);
+        String sql = "SELECT COUNT(*) FROM users WHERE 1=1" + where;
+        if (Boolean.TRUE.equals(req.getIncludeDeleted())) {
+            sql = "SELECT (" + sql + ") + (SELECT COUNT(*) FROM users_archive WHERE 1=1" + where + ")";
+        }
+        String query = sql;
+        return timed("count", queryShape(req), () -> jdbc.queryForObject(query, p, Long.class));
     }
 
     /**
@@ -255,28 +361,147 @@ public class UserJdbcRepository {
      *
      * <p>Defaults: page = 0 when null/negative; size = 50 when null/invalid; maximum size = 200.</p>
      *
+     * <p>With {@code includeDeleted=true} the archive is searched too: the same filters run against
+     * {@code users} and {@code users_archive}, the two are combined with {@code UNION ALL} (a user is
+     * in exactly one of them) and sorted and paged as one result.</p>
+     *
      * @param req the search request (criteria, sortBy/sortDir, page/size)
      * @return a {@link Page} of {@link UserEntity} results
      */
     public Page<UserEntity> searchUserPage(UserSearchRequest req) {
-        int page = (req.getPage() != null && req.getPage() >= 0) ? req.getPage() : 0;
-        int size = (req.getSize() != null && req.getSize() > 0 && req.getSize() <= 200) ? req.getSize() : 50;
+        int page = pageOf(req);
+        int size = sizeOf(req);
+        List<UserEntity> rows = searchRows(req, size, page * size);
+        long total = countSearch(req);
+
+        return new PageImpl<>(rows, PageRequest.of(page, size), total);
+    }
+
+    /**
+     * @return the requested page number, or 0 when null/negative
+     */
+    static int pageOf(UserSearchRequest req) {
+        return (req.getPage() != null && req.getPage() >= 0) ? req.getPage() : 0;
+    }
 
+    /**
+     * @return the requested page size, or 50 when null/invalid (maximum 200)
+     */
+    static int sizeOf(UserSearchRequest req) {
+        return (req.getSize() != null && req.getSize() > 0 && req.getSize() <= 200) ? req.getSize() : 50;
+    }
+
+    /**
+     * Rows of a search with an explicit window, ignoring the request's page and size. Used by
+     * {@link ShardedUserJdbcRepository}, which needs each shard's top rows to merge a global page.
+     */
+    List<UserEntity> searchRows(UserSearchRequest req, int limit, int offset) {
         String orderBy = resolveSortBy(req.getSortBy());
         String dir = resolveSortDir(req.getSortDir());
 
-        StringBuilder sql = new StringBuilder(SELECT_BASE);
+        StringBuilder where = new StringBuilder();
         Map<String, Object> p = new HashMap<>();
-        appendFilters(sql, p, req);
+        appendFilters(where, p, req);
+        StringBuilder sql = new StringBuilder(SELECT_BASE).append(where);
+        if (Boolean.TRUE.equals(req.getIncludeDeleted())) {
+            sql.append(" UNION ALL ").append(SELECT_ARCHIVE_BASE).append(where);
+        }
 
-        sql.append(" ORDER BY ").append(orderBy).append(" ").append(dir);
+        // id breaks ties so pages are stable and match the (column, id) partial indexes
+        sql.append(" ORDER BY ").append(orderBy).append(" ").append(dir).append(", id ").append(dir);
         sql.append(" LIMIT :limit OFFSET :offset");
-        p.put("limit", size);
-        p.put("offset", page * size);
+        p.put("limit", limit);
+        p.put("offset", offset);
 
-        List<UserEntity> rows = jdbc.query(sql.toString(), p, rowMapper());
-        long total = countSearch(req);
+        return timed("search", queryShape(req), () -> jdbc.query(sql.toString(), p, rowMapper()));
+    }
 
-        return new PageImpl<>(rows, PageRequest.of(page, size), total);
+    /**
+     * Users whose {@code (updated_at, id)} is after {@code since}, in that order, soft-deleted ones
+     * included. Keyset pagination over {@code idx_users_updated_at_id} (changeset 011), so the cost
+     * depends on {@code limit}, not on how far the watermark is into the table.
+     *
+     * <p>Only rows last updated more than {@code settleLag} ago (by the database clock) are returned.
+     * {@code updated_at} is set from the writing transaction's start time (or the application clock
+     * on insert), so a row can become visible with a timestamp older than rows already handed out;
+     * the lag keeps such late commits ahead of every watermark.</p>
+     *
+     * @param since     last watermark the caller has seen; {@code null} starts from the beginning
+     * @param limit     maximum number of rows
+     * @param settleLag how long a change must be committed before it is returned
+     * @return changed users, oldest change first
+     */
+    public List<UserEntity> changesSince(Watermark since, int limit, Duration settleLag) {
+        StringBuilder sql = new StringBuilder(SELECT_BASE);
+        Map<String, Object> p = new HashMap<>();
+        sql.append(" AND updated_at < now() - make_interval(secs => :settleSeconds)");
+        p.put("settleSeconds", settleLag.toNanos() / 1e9);
+        String shape = "start";
+        if (since != null && since.getUpdatedAt() != null) {
+            // Row comparison, so the (updated_at, id) index range starts right after the watermark
+            sql.append(" AND (updated_at, id) > (:sinceUpdatedAt, :sinceId)");
+            p.put("sinceUpdatedAt", Timestamp.from(since.getUpdatedAt()));
+            p.put("sinceId", since.getId() != null ? since.getId() : new UUID(0L, 0L));
+            shape = "watermark";
+        }
+        sql.append(" ORDER BY updated_at, id LIMIT :limit");
+        p.put("limit", limit);
+        return timed("changes", shape, () -> jdbc.query(sql.toString(), p, rowMapper()));
+    }
+
+    /**
+     * Names the filters present on a search, in a fixed order, for the {@code shape} metric tag.
+     * Values are never included, so the tag stays low-cardinality.
+     */
+    static String queryShape(UserSearchRequest req) {
+        StringJoiner shape = new StringJoiner("+");
+        if (req.getQ() != null && !req.getQ().isBlank()) {
+            shape.add("q");
+        } else if (req.getUser() != null) {
+            var f = req.getUser();
+            if (f.getUsername() != null && !f.getUsername().isBlank()) shape.add("username");
+            if (f.getEmail() != null && !f.getEmail().isBlank()) shape.add("email");
+            if (f.getFirstName() != null && !f.getFirstName().isBlank()) shape.add("firstName");
+            if (f.getLastName() != null && !f.getLastName().isBlank()) shape.add("lastName");
+            if (f.getPhone() != null && !f.getPhone().isBlank()) shape.add("phone");
+            if (f.getPhoneSuffix() != null && !PhoneNumbers.reversedDigits(f.getPhoneSuffix()).isEmpty()) shape.add("phoneSuffix");
+        }
+        if (Boolean.TRUE.equals(req.getIncludeDeleted())) {
+            shape.add("includeDeleted");
+        }
+        return shape.length() == 0 ? "none" : shape.toString();
+    }
+
+    private <T> T timed(String query, String shape, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        T result = null;
+        try {
+            result = call.get();
+            return result;
+        } finally {
+            sample.stop(Timer.builder("user.db.query")
+                .tag("query", query)
+                .tag("shape", shape)
+                .register(meterRegistry));
+            event.end();
+            if (event.shouldCommit()) {
+                event.query = query;
+                event.shape = shape;
+                event.rows = rowCount(result);
+                event.commit();
+            }
+        }
+    }
+
+    private static int rowCount(Object result) {
+        if (result instanceof Collection<?> c) {
+            return c.size();
+        }
+        if (result instanceof Optional<?> o) {
+            return o.isPresent() ? 1 : 0;
+        }
+        return result != null ? 1 : 0;
     }
 }
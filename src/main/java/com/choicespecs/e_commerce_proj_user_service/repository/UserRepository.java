@@ -1,9 +1,11 @@
-
 package com.choicespecs.e_commerce_proj_user_service.repository;
 
 import java.util.List;
+import java.util.Locale;
 
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
 
@@ -14,6 +16,35 @@ public interface UserRepository extends CrudRepository<UserEntity, String> {
 
     List<UserEntity> findByDeletedFalse();
 
-    UserEntity findByEmail(String email);
-    UserEntity findByUsernameIgnoreCase(String username);
+    /**
+     * The email is resolved to an id through {@code user_email_claims} and the user read by id, so
+     * only the partition holding it is probed: since 009 {@code users} has no index that serves a
+     * plain {@code email = ?} (the email indexes are partial, for live rows only).
+     */
+    String FIND_BY_EMAIL = """
+        SELECT * FROM users
+        WHERE id = (SELECT user_id FROM user_email_claims WHERE email_lc = lower(:email))
+          AND email = :email
+        """;
+
+    /**
+     * Exact-email lookup, soft-deleted users included; see {@link #FIND_BY_EMAIL}.
+     */
+    @Query(FIND_BY_EMAIL)
+    UserEntity findByEmail(@Param("email") String email);
+
+    /**
+     * @param usernameLc username already lowercased with {@link Locale#ROOT}
+     */
+    @Query("SELECT * FROM users WHERE username_lc = :usernameLc")
+    UserEntity findByUsernameLc(@Param("usernameLc") String usernameLc);
+
+    /**
+     * Case-insensitive lookup served by the {@code username_lc} index (non-unique, one per partition;
+     * uniqueness is enforced by {@code user_username_claims}); a derived {@code IgnoreCase} query
+     * would wrap the column in {@code UPPER(...)} and skip the index.
+     */
+    default UserEntity findByUsernameIgnoreCase(String username) {
+        return findByUsernameLc(username.toLowerCase(Locale.ROOT));
+    }
 }
@@ -0,0 +1,134 @@
+package com.choicespecs.e_commerce_proj_user_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.repository.ProcessedMessageRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Message-id based deduplication for write commands.
+ *
+ * <p>A bounded in-memory LRU answers most redeliveries without a round trip; misses fall
+ * back to the {@code processed_messages} table so duplicates are still caught after a restart
+ * or when the redelivery lands on another instance. Ids are recorded only after the command
+ * succeeded, so a command that failed (or whose consumer died mid-way) is processed again.</p>
+ *
+ * <h2>Metrics</h2>
+ * <ul>
+ *   <li>{@code user.dedup.lookups{result=memory_hit|store_hit|miss}} – hit rate.</li>
+ *   <li>{@code user.dedup.memory.size} – ids held in the LRU.</li>
+ *   <li>{@code user.dedup.store.size} – ids held in the table (refreshed by the cleanup job).</li>
+ * </ul>
+ */
+@Component
+public class MessageDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageDeduplicator.class);
+
+    private final ProcessedMessageRepository repository;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Map<String, Boolean> recent;
+    private final AtomicLong storeSize = new AtomicLong();
+
+    private final Counter memoryHits;
+    private final Counter storeHits;
+    private final Counter misses;
+
+    public MessageDeduplicator(ProcessedMessageRepository repository, MeterRegistry meterRegistry,
+                               @Value("${user.dedup.enabled:true}") boolean enabled,
+                               @Value("${user.dedup.memory-capacity:10000}") int capacity,
+                               @Value("${user.dedup.ttl:PT24H}") Duration ttl) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        });
+
+        this.memoryHits = lookups(meterRegistry, "memory_hit");
+        this.storeHits = lookups(meterRegistry, "store_hit");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder("user.dedup.memory.size", recent, Map::size).register(meterRegistry);
+        Gauge.builder("user.dedup.store.size", storeSize, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * @param messageId AMQP message id of the inbound command; {@code null} disables the check
+     * @return {@code true} if the command was already processed and should just be acknowledged
+     */
+    public boolean isDuplicate(String messageId) {
+        if (!enabled || messageId == null || messageId.isBlank()) {
+            return false;
+        }
+        if (recent.containsKey(messageId)) {
+            memoryHits.increment();
+            return true;
+        }
+        if (repository.exists(messageId)) {
+            storeHits.increment();
+            recent.put(messageId, Boolean.TRUE);
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Records a command as processed. Call only after the command succeeded.
+     *
+     * @param messageId AMQP message id of the inbound command; {@code null} is ignored
+     */
+    public void markProcessed(String messageId) {
+        if (!enabled || messageId == null || messageId.isBlank()) {
+            return;
+        }
+        recent.put(messageId, Boolean.TRUE);
+        try {
+            repository.insert(messageId);
+        } catch (Exception e) {
+            // The command itself succeeded; losing the durable record only weakens dedup after a restart
+            log.warn("Failed to record processed message id {}", messageId, e);
+        }
+    }
+
+    /**
+     * Purges ids older than {@code user.dedup.ttl} and refreshes the store size gauge.
+     */
+    @Scheduled(fixedDelayString = "${user.dedup.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int removed = repository.deleteProcessedBefore(Instant.now().minus(ttl));
+            storeSize.set(repository.count());
+            if (removed > 0) {
+                log.info("Purged {} processed message ids older than {}", removed, ttl);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge processed message ids", e);
+        }
+    }
+
+    private static Counter lookups(MeterRegistry registry, String result) {
+        return Counter.builder("user.dedup.lookups").tag("result", result).register(registry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.choicespecs.e_commerce_proj_user_service.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight table for identical read lookups.
+ *
+ * <p>While a lookup for a given key is running, identical lookups arriving on other
+ * consumer threads attach to the in-flight call instead of issuing their own query.
+ * Every caller receives the same result (or the same exception) and is responsible for
+ * publishing its own reply, so each reply still carries its own {@code x-request-id}.</p>
+ *
+ * <p>Entries only live for the duration of the query; nothing is cached once the
+ * leader completes.</p>
+ *
+ * <p>Followers wait at most {@code user.lookup.coalescing.max-wait} (by default the JDBC query
+ * timeout) for the leader. A follower that times out runs the lookup itself, so a hung leader
+ * cannot pin every consumer thread asking for the same key.</p>
+ *
+ * <h2>Metrics</h2>
+ * <ul>
+ *   <li>{@code user.lookup.coalescing{lookup, role=leader}} – lookups that hit the database.</li>
+ *   <li>{@code user.lookup.coalescing{lookup, role=follower}} – lookups that attached to an in-flight call.</li>
+ *   <li>{@code user.lookup.coalescing{lookup, role=timeout}} – followers that gave up waiting and ran the lookup.</li>
+ * </ul>
+ * The coalescing rate is {@code follower / (leader + follower)}.
+ */
+@Component
+public class RequestCoalescer {
+
+    public static final String LOOKUP_GET = "get";
+    public static final String LOOKUP_SEARCH = "search";
+
+    private static final String METRIC_NAME = "user.lookup.coalescing";
+
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long maxWaitNanos;
+
+    public RequestCoalescer(MeterRegistry meterRegistry,
+                            @Value("${user.lookup.coalescing.enabled:true}") boolean enabled,
+                            @Value("${user.lookup.coalescing.max-wait:${spring.jdbc.template.query-timeout:10s}}") Duration maxWait) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Runs {@code loader} for {@code key} unless an identical lookup is already in flight,
+     * in which case the caller waits for and shares that lookup's outcome. If the in-flight
+     * lookup does not finish within the maximum wait, the caller runs {@code loader} itself.
+     *
+     * @param lookup lookup type, used for the metric tag and to keep key spaces apart
+     * @param key    normalized request key (must implement value equality)
+     * @param loader the query to execute when this caller is the leader
+     * @return the loader's result
+     * @throws Exception whatever the leader's loader threw
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(String lookup, Object key, Callable<T> loader) throws Exception {
+        if (!enabled) {
+            return loader.call();
+        }
+        List<Object> tableKey = List.of(lookup, key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(tableKey, mine);
+        if (existing != null) {
+            counter(lookup, "follower").increment();
+            try {
+                return (T) await(existing);
+            } catch (TimeoutException e) {
+                counter(lookup, "timeout").increment();
+                return loader.call();
+            }
+        }
+
+        counter(lookup, "leader").increment();
+        try {
+            T result = loader.call();
+            mine.complete(result);
+            return result;
+        } catch (Throwable t) {
+            // Errors too, or followers would wait out max-wait and then repeat the failing lookup
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(tableKey, mine);
+        }
+    }
+
+    /**
+     * Number of lookups currently in flight (leaders only).
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+
+    private Counter counter(String lookup, String role) {
+        return Counter.builder(METRIC_NAME)
+                .tag("lookup", lookup)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.choicespecs.e_commerce_proj_user_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.choicespecs.e_commerce_proj_user_service.repository.UserArchiveRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Background job moving users soft-deleted longer than {@code user.archive.retention} from
+ * {@code users} into {@code users_archive}, keeping the hot table and its indexes to live users.
+ *
+ * <p>Each run moves batches of {@code user.archive.batch-size} rows (one short transaction each,
+ * see {@link UserArchiveRepository}) until nothing is left or {@code user.archive.max-run-duration}
+ * is used up, sleeping between batches so the job never moves more than
+ * {@code user.archive.max-rows-per-second}. The deletion time is taken from {@code updated_at},
+ * which the delete sets. Several instances may run the job at once: locked rows are skipped, so
+ * they split the work instead of contending for it.</p>
+ *
+ * <h2>Metrics</h2>
+ * <ul>
+ *   <li>{@code user.archive.moved} – users moved to the archive.</li>
+ *   <li>{@code user.archive.batch} – time per batch.</li>
+ * </ul>
+ */
+@Component
+public class UserArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(UserArchiver.class);
+
+    private final UserArchiveRepository repository;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+    private final double maxRowsPerSecond;
+    private final Duration maxRunDuration;
+
+    private final Counter moved;
+    private final Timer batchTimer;
+
+    public UserArchiver(UserArchiveRepository repository, MeterRegistry meterRegistry,
+                        @Value("${user.archive.enabled:true}") boolean enabled,
+                        @Value("${user.archive.retention:P30D}") Duration retention,
+                        @Value("${user.archive.batch-size:500}") int batchSize,
+                        @Value("${user.archive.max-rows-per-second:2000}") double maxRowsPerSecond,
+                        @Value("${user.archive.max-run-duration:PT30S}") Duration maxRunDuration) {
+        if (batchSize < 1 || maxRowsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid user archive batch settings");
+        }
+        this.repository = repository;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxRunDuration = maxRunDuration;
+        this.moved = Counter.builder("user.archive.moved").register(meterRegistry);
+        this.batchTimer = Timer.builder("user.archive.batch").register(meterRegistry);
+    }
+
+    /**
+     * Archives eligible users in throttled batches. Failures are logged; the next run resumes.
+     */
+    @Scheduled(fixedDelayString = "${user.archive.interval-ms:300000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int total = run();
+            if (total > 0) {
+                log.info("Archived {} users deleted more than {} ago", total, retention);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to archive deleted users", e);
+        }
+    }
+
+    /**
+     * @return number of users moved by this run
+     */
+    int run() throws InterruptedException {
+        long deadline = System.nanoTime() + maxRunDuration.toNanos();
+        Instant cutoff = Instant.now().minus(retention);
+        int total = 0;
+        while (System.nanoTime() - deadline < 0) {
+            long start = System.nanoTime();
+            int n = repository.moveBatch(cutoff, batchSize);
+            long elapsed = System.nanoTime() - start;
+            batchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            moved.increment(n);
+            total += n;
+            if (n < batchSize) {
+                break;
+            }
+            // Spread batches out so the job stays under the configured row rate
+            long budget = (long) (n / maxRowsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            long pause = Math.min(budget - elapsed, deadline - System.nanoTime());
+            if (pause > 0) {
+                TimeUnit.NANOSECONDS.sleep(pause);
+            }
+        }
+        return total;
+    }
+}
@@ -1,16 +1,28 @@
 package com.choicespecs.e_commerce_proj_user_service.service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.StageTimings;
+import com.choicespecs.e_commerce_proj_user_service.dto.ChangesSinceRequest;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
 import com.choicespecs.e_commerce_proj_user_service.event.EventPublisher;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceUpdatedEvent;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
 import com.choicespecs.e_commerce_proj_user_service.model.User;
+import com.choicespecs.e_commerce_proj_user_service.repository.ShardedUserJdbcRepository;
 import com.choicespecs.e_commerce_proj_user_service.repository.UserJdbcRepository;
 import com.choicespecs.e_commerce_proj_user_service.repository.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -40,11 +52,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  *   </li>
  *   <li>Handle SEARCH flows by executing a paginated query and emitting either
  *       {@code user.search} (success) or {@code user.search} (error).</li>
+ *   <li>Handle CHANGES_SINCE flows by reading the users changed after a watermark and emitting
+ *       {@code user.changes} (success or error).</li>
  * </ul>
  *
  * <h2>Notes</h2>
  * <ul>
+ *   <li>With {@code user.sharding.enabled=true} every read and write goes through
+ *       {@link ShardedUserJdbcRepository} instead of the two single-database repositories.</li>
  *   <li>Timestamps: {@code updatedAt} is refreshed on update and delete.</li>
+ *   <li>Concurrency: writes are optimistic ({@code @Version} on {@link UserEntity}). Update and
+ *       delete re-read the user and try again when another consumer wrote it first, up to
+ *       {@code user.write.max-attempts} times; after that the conflict propagates to the
+ *       listener's retry routing.</li>
  *   <li>Error policy for GET/SEARCH: exceptions are caught and converted to error events
  *       (callers rely on events rather than thrown exceptions).</li>
  * </ul>
@@ -54,6 +74,16 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserJdbcRepository userJdbcRepository;
     private final EventPublisher eventPublisher;
+    private final RequestCoalescer requestCoalescer;
+    private final UserServiceUpdatedEvent.PayloadType updatedPayloadType;
+    /** Present only when sharding is enabled. */
+    private final ShardedUserJdbcRepository shardedRepository;
+    private final int maxWriteAttempts;
+    private final Duration changesSettleLag;
+
+    /** Default and maximum rows per {@code changesSince} reply. */
+    static final int DEFAULT_CHANGES_LIMIT = 500;
+    static final int MAX_CHANGES_LIMIT = 1000;
 
 
 
@@ -63,11 +93,26 @@ public class UserService {
      * @param userRepository     Spring Data repository for writes/basic reads
      * @param userJdbcRepository Read-optimized JDBC repository for GET/SEARCH
      * @param eventPublisher     Domain event publisher
+     * @param requestCoalescer   Single-flight table shared by concurrent identical GET/SEARCH lookups
+     * @param updatedPayload     {@code delta} or {@code snapshot}; shape of emitted {@code user.updated} events
+     * @param shardedRepository  sharded repository, available when {@code user.sharding.enabled=true}
+     * @param maxWriteAttempts   attempts per update/delete when the row changes concurrently
+     * @param changesSettleLag   minimum age of a change before {@code changesSince} returns it
      */
-    public UserService(UserRepository userRepository, UserJdbcRepository userJdbcRepository, EventPublisher eventPublisher, ObjectMapper objectMapper) {
+    public UserService(UserRepository userRepository, UserJdbcRepository userJdbcRepository, EventPublisher eventPublisher, ObjectMapper objectMapper,
+                       RequestCoalescer requestCoalescer,
+                       @Value("${user.events.updated.payload:delta}") String updatedPayload,
+                       ObjectProvider<ShardedUserJdbcRepository> shardedRepository,
+                       @Value("${user.write.max-attempts:3}") int maxWriteAttempts,
+                       @Value("${user.changes.settle-lag:PT5S}") Duration changesSettleLag) {
         this.userRepository = userRepository;
         this.userJdbcRepository = userJdbcRepository;
         this.eventPublisher = eventPublisher;
+        this.requestCoalescer = requestCoalescer;
+        this.updatedPayloadType = UserServiceUpdatedEvent.PayloadType.fromString(updatedPayload);
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.maxWriteAttempts = Math.max(1, maxWriteAttempts);
+        this.changesSettleLag = changesSettleLag;
     }
 
     /**
@@ -81,7 +126,7 @@ public class UserService {
      */
     public void createUser(User user) {
         UserEntity userEntity = user.toEntity();
-        userRepository.save(userEntity);
+        save(userEntity);
         eventPublisher.publishUserCreatedEvent(userEntity);
     }
 
@@ -93,33 +138,62 @@ public class UserService {
      * {@code null}; consider hardening to avoid {@link NullPointerException}.</p>
      *
      * @param email unique email of the user to delete
+     * @throws OptimisticLockingFailureException if the user kept changing for every attempt
      */
     public void deleteUser(String email) {
-        UserEntity userEntity = userRepository.findByEmail(email);
-        userEntity.setDeleted(true);
-        userEntity.setUpdatedAt(Instant.now());
-        userRepository.save(userEntity);    
-        eventPublisher.publishUserDeletedEvent(userEntity);
+        for (int attempt = 1; ; attempt++) {
+            UserEntity userEntity = shardedRepository != null
+                ? shardedRepository.findByEmail(email)
+                : userRepository.findByEmail(email);
+            userEntity.setDeleted(true);
+            userEntity.setUpdatedAt(Instant.now());
+            try {
+                save(userEntity);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxWriteAttempts) throw e;
+                continue;
+            }
+            eventPublisher.publishUserDeletedEvent(userEntity);
+            return;
+        }
     }
 
     /**
      * Updates an existing user identified by {@code username} and publishes a {@code user.updated} event.
      *
-     * <p>Applies a partial update from {@link UserRequest#applyTo(UserEntity)}, refreshes the
-     * {@code updatedAt} timestamp, persists, then emits the event. If the username isn't found,
+     * <p>Applies a partial update from {@link UserRequest#applyTo(UserEntity)}. When nothing actually
+     * changed the update is a no-op: nothing is written and no event is emitted. Otherwise the
+     * {@code updatedAt} timestamp is refreshed, the row is persisted (which bumps the version) and the
+     * changed fields are emitted as a delta (or snapshot, per {@code user.events.updated.payload}).
+     * If another writer changed the user in between, the update is re-applied to a fresh read.
+     * If the username isn't found,
      * {@link UserRepository#findByUsernameIgnoreCase(String)} may return {@code null}; consider
      * enforcing a not-found policy.</p>
      *
      * @param username case-insensitive username of the target user
      * @param request  fields to update
      * @throws JsonProcessingException if any serialization logic inside {@code request.applyTo(...)} throws
+     * @throws OptimisticLockingFailureException if the user kept changing for every attempt
      */
     public void updateUser(String username, UserRequest request) throws JsonProcessingException {
-        UserEntity userEntity = userRepository.findByUsernameIgnoreCase(username);
-        request.applyTo(userEntity);
-        userEntity.setUpdatedAt(Instant.now());
-        userRepository.save(userEntity);
-        eventPublisher.publishUserUpdatedEvent(userEntity);
+        for (int attempt = 1; ; attempt++) {
+            UserEntity userEntity = shardedRepository != null
+                ? shardedRepository.findByUsernameIgnoreCase(username)
+                : userRepository.findByUsernameIgnoreCase(username);
+            Map<String, FieldChange> changes = request.applyTo(userEntity);
+            if (changes.isEmpty()) {
+                return;
+            }
+            userEntity.setUpdatedAt(Instant.now());
+            try {
+                save(userEntity);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxWriteAttempts) throw e;
+                continue;
+            }
+            eventPublisher.publishUserUpdatedEvent(userEntity, changes, updatedPayloadType);
+            return;
+        }
     }
 
 
@@ -130,13 +204,25 @@ public class UserService {
      * out deleted rows. Results are sent back over Rabbit via {@link EventPublisher} with the
      * provided {@code headerReqId} for correlation.</p>
      *
+     * <p>Identical lookups that are already in flight on another consumer share that query
+     * through {@link RequestCoalescer}; each caller still publishes its own reply.</p>
+     *
      * @param request     selection criteria (exactly one of username/email/phone)
      * @param headerReqId correlation id (from message header) used in the emitted event
      * @throws JsonProcessingException included for parity with surrounding API; not thrown here directly
      */
     public void getUser(UserRequest request, String headerReqId) throws JsonProcessingException{
         try {
-            Optional<UserEntity> opt = userJdbcRepository.getUser(request);
+            long dbStart = System.nanoTime();
+            Optional<UserEntity> opt;
+            try {
+                opt = requestCoalescer.coalesce(RequestCoalescer.LOOKUP_GET,
+                    request.coalescingKey(), () -> shardedRepository != null
+                        ? shardedRepository.getUser(request)
+                        : userJdbcRepository.getUser(request));
+            } finally {
+                StageTimings.add(StageTimings.Stage.DB, System.nanoTime() - dbStart);
+            }
             if (opt.isPresent()) {
                 eventPublisher.publishUserReadEvent(headerReqId, opt.get());
             } else {
@@ -151,17 +237,71 @@ public class UserService {
      * Executes a SEARCH flow and publishes success or error events.
      *
      * <p>Delegates to the JDBC repository for filtered, paginated results, then emits
-     * a {@code user.search} event carrying the page payload and metadata.</p>
+     * a {@code user.search} event carrying the page payload and metadata. Identical searches
+     * already in flight are coalesced the same way as GET.</p>
      *
      * @param req       search criteria, sort, and paging options
      * @param requestId correlation id carried through to the emitted event
      */
     public void searchUser(UserSearchRequest req, String requestId) {
         try {
-            Page<UserEntity> page = userJdbcRepository.searchUserPage(req);
+            long dbStart = System.nanoTime();
+            Page<UserEntity> page;
+            try {
+                page = requestCoalescer.coalesce(RequestCoalescer.LOOKUP_SEARCH,
+                    req.coalescingKey(), () -> shardedRepository != null
+                        ? shardedRepository.searchUserPage(req)
+                        : userJdbcRepository.searchUserPage(req));
+            } finally {
+                StageTimings.add(StageTimings.Stage.DB, System.nanoTime() - dbStart);
+            }
             eventPublisher.publishUserSearchSuccess(requestId, req, page);
         } catch (Exception e) {
             eventPublisher.publishUserSearchError(requestId, req, e.getMessage());
         }
     }
+
+    /**
+     * Executes a CHANGES_SINCE flow and publishes success or error events.
+     *
+     * <p>Returns up to {@code limit} (default 500 when absent or not positive, capped at 1000) users changed after
+     * {@code req.since}, soft-deleted ones included, and the watermark of the last one as
+     * {@code next}. With no changes {@code next} is {@code since} again. Changes younger than
+     * {@code user.changes.settle-lag} are held back (see {@link UserJdbcRepository#changesSince}).</p>
+     *
+     * @param req       watermark and limit
+     * @param requestId correlation id carried through to the emitted event
+     */
+    public void changesSince(ChangesSinceRequest req, String requestId) {
+        Watermark since = req.getSince();
+        try {
+            int limit = req.getLimit() != null && req.getLimit() > 0
+                ? Math.min(req.getLimit(), MAX_CHANGES_LIMIT) : DEFAULT_CHANGES_LIMIT;
+            long dbStart = System.nanoTime();
+            List<UserEntity> rows;
+            try {
+                rows = shardedRepository != null
+                    ? shardedRepository.changesSince(since, limit, changesSettleLag)
+                    : userJdbcRepository.changesSince(since, limit, changesSettleLag);
+            } finally {
+                StageTimings.add(StageTimings.Stage.DB, System.nanoTime() - dbStart);
+            }
+            Watermark next = since;
+            if (!rows.isEmpty()) {
+                UserEntity last = rows.get(rows.size() - 1);
+                next = new Watermark(last.getUpdatedAt(), last.getId());
+            }
+            eventPublisher.publishUserChangesSuccess(requestId, since, limit, next, rows.size() == limit, rows);
+        } catch (Exception e) {
+            eventPublisher.publishUserChangesError(requestId, since, e.getMessage());
+        }
+    }
+
+    private void save(UserEntity userEntity) {
+        if (shardedRepository != null) {
+            shardedRepository.save(userEntity);
+        } else {
+            userRepository.save(userEntity);
+        }
+    }
 }
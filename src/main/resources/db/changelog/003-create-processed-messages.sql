@@ -0,0 +1,9 @@
+-- 003-create-processed-messages.sql
+-- Ids of commands that were already applied, used to acknowledge redeliveries without re-running them.
+-- Rows older than user.dedup.ttl are purged by MessageDeduplicator.
+CREATE TABLE processed_messages (
+    message_id TEXT PRIMARY KEY,
+    processed_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_processed_messages_processed_at ON processed_messages(processed_at);
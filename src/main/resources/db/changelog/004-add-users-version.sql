@@ -0,0 +1,3 @@
+-- 004-add-users-version.sql
+-- Per-user version, incremented on every change; carried on user.updated events so consumers can order deltas.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
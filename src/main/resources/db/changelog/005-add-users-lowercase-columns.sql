@@ -0,0 +1,20 @@
+-- 005-add-users-lowercase-columns.sql
+-- Case-folded copies of the case-insensitive lookup columns, maintained by Postgres, so queries
+-- compare plain indexed columns instead of LOWER(column) expressions.
+ALTER TABLE users
+    ADD COLUMN username_lc   TEXT GENERATED ALWAYS AS (lower(username))   STORED,
+    ADD COLUMN email_lc      TEXT GENERATED ALWAYS AS (lower(email))      STORED,
+    ADD COLUMN first_name_lc TEXT GENERATED ALWAYS AS (lower(first_name)) STORED,
+    ADD COLUMN last_name_lc  TEXT GENERATED ALWAYS AS (lower(last_name))  STORED;
+
+-- Same case-insensitive uniqueness as ux_users_username_ci, on the stored column
+CREATE UNIQUE INDEX ux_users_username_lc ON users (username_lc);
+DROP INDEX ux_users_username_ci;
+
+-- Not unique: the original UNIQUE(email) is case-sensitive and existing rows may differ only by case
+CREATE INDEX idx_users_email_lc ON users (email_lc);
+
+-- Name filters are substring matches (LIKE '%x%'), which only trigram indexes can serve
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_users_first_name_lc_trgm ON users USING gin (first_name_lc gin_trgm_ops);
+CREATE INDEX idx_users_last_name_lc_trgm ON users USING gin (last_name_lc gin_trgm_ops);
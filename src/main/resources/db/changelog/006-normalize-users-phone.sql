@@ -0,0 +1,19 @@
+-- 006-normalize-users-phone.sql
+-- Phones are stored digits-only (see PhoneNumbers.normalize); rewrite rows entered before that.
+-- Reformatting is not a user change, so the updated_at trigger is suspended for the backfill.
+ALTER TABLE users DISABLE TRIGGER trg_users_set_updated_at;
+
+UPDATE users
+   SET phone = regexp_replace(phone, '[^0-9]', '', 'g')
+ WHERE phone ~ '[^0-9]'
+   AND phone ~ '[0-9]';
+
+ALTER TABLE users ENABLE TRIGGER trg_users_set_updated_at;
+
+-- Exact lookups (get by phone, phone filter)
+CREATE INDEX idx_users_phone ON users (phone);
+
+-- "Last N digits" lookups become prefix matches on the reversed number;
+-- text_pattern_ops lets LIKE 'prefix%' use the index regardless of the database collation
+ALTER TABLE users ADD COLUMN phone_rev TEXT GENERATED ALWAYS AS (reverse(phone)) STORED;
+CREATE INDEX idx_users_phone_rev ON users (phone_rev text_pattern_ops);
@@ -0,0 +1,20 @@
+-- 007-add-users-live-partial-indexes.sql
+-- Reads almost always filter on deleted = false. Index only live rows, so soft-deleted users
+-- don't bloat the indexes hot queries use, and drop the low-selectivity index on the flag itself.
+DROP INDEX idx_users_deleted;
+
+-- Sort columns (UserJdbcRepository.SORT_COLUMNS), each with id as tie-breaker so a page is a
+-- single ordered index range, in either direction, and paging is stable across equal values
+CREATE INDEX idx_users_live_created_at ON users (created_at, id) WHERE deleted = false;
+CREATE INDEX idx_users_live_updated_at ON users (updated_at, id) WHERE deleted = false;
+CREATE INDEX idx_users_live_username   ON users (username, id)   WHERE deleted = false;
+CREATE INDEX idx_users_live_email      ON users (email, id)      WHERE deleted = false;
+CREATE INDEX idx_users_live_first_name ON users (first_name, id) WHERE deleted = false;
+CREATE INDEX idx_users_live_last_name  ON users (last_name, id)  WHERE deleted = false;
+
+-- Lookups by email / phone only ever target live users (get) or are combined with deleted = false
+-- (search without includeDeleted). username_lc keeps its full unique index: it enforces uniqueness.
+DROP INDEX idx_users_email_lc;
+CREATE INDEX idx_users_live_email_lc ON users (email_lc, id) WHERE deleted = false;
+DROP INDEX idx_users_phone;
+CREATE INDEX idx_users_live_phone ON users (phone, id) WHERE deleted = false;
@@ -0,0 +1,16 @@
+-- 008-create-users-archive.sql
+-- Cold storage for users soft-deleted longer than user.archive.retention; filled by UserArchiver.
+-- Same columns as users (generated ones included), so searches run the same predicates on both.
+CREATE TABLE users_archive (
+    LIKE users INCLUDING DEFAULTS INCLUDING GENERATED,
+    archived_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id)
+);
+
+-- includeDeleted searches: default sort and the exact-match filters
+CREATE INDEX idx_users_archive_created_at ON users_archive (created_at, id);
+CREATE INDEX idx_users_archive_username_lc ON users_archive (username_lc);
+CREATE INDEX idx_users_archive_email_lc ON users_archive (email_lc);
+
+-- Archival candidates: only soft-deleted rows, oldest deletion first
+CREATE INDEX idx_users_deleted_updated_at ON users (updated_at) WHERE deleted = true;
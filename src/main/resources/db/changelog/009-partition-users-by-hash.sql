@@ -0,0 +1,107 @@
+-- 009-partition-users-by-hash.sql
+-- Rebuilds users as a table hash-partitioned by id into ${users.partitions} partitions.
+--
+-- Unique indexes on a partitioned table must contain the partition key, so case-insensitive
+-- username and email uniqueness can no longer be index constraints on users. They move to the
+-- claim tables below, maintained by a trigger in the same transaction as the write: a duplicate
+-- fails with a unique violation exactly as before.
+--
+-- Offline path: the copy runs in this changeset's transaction and holds an exclusive lock on
+-- users throughout. Very large tables should be copied ahead of time instead (see README).
+
+ALTER TABLE users RENAME TO users_unpartitioned;
+ALTER TABLE users_unpartitioned RENAME CONSTRAINT users_pkey TO users_unpartitioned_pkey;
+
+CREATE TABLE users (
+    id uuid NOT NULL DEFAULT gen_random_uuid(),
+    username TEXT NOT NULL,
+    email TEXT NOT NULL,
+    first_name TEXT,
+    last_name TEXT,
+    phone TEXT,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    version BIGINT NOT NULL DEFAULT 0,
+    username_lc   TEXT GENERATED ALWAYS AS (lower(username))   STORED,
+    email_lc      TEXT GENERATED ALWAYS AS (lower(email))      STORED,
+    first_name_lc TEXT GENERATED ALWAYS AS (lower(first_name)) STORED,
+    last_name_lc  TEXT GENERATED ALWAYS AS (lower(last_name))  STORED,
+    phone_rev     TEXT GENERATED ALWAYS AS (reverse(phone))    STORED,
+    PRIMARY KEY (id)
+) PARTITION BY HASH (id);
+
+DO $do$
+BEGIN
+    FOR i IN 0 .. ${users.partitions} - 1 LOOP
+        EXECUTE format('CREATE TABLE users_p%s PARTITION OF users FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       i, ${users.partitions}, i);
+    END LOOP;
+END
+$do$;
+
+INSERT INTO users (id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version)
+SELECT id, username, email, first_name, last_name, phone, deleted, created_at, updated_at, version
+  FROM users_unpartitioned;
+
+DROP TABLE users_unpartitioned;
+
+-- Global uniqueness: one row per claimed key, pointing at the owning user
+CREATE TABLE user_username_claims (
+    username_lc TEXT PRIMARY KEY,
+    user_id uuid NOT NULL
+);
+CREATE TABLE user_email_claims (
+    email_lc TEXT PRIMARY KEY,
+    user_id uuid NOT NULL
+);
+INSERT INTO user_username_claims (username_lc, user_id) SELECT username_lc, id FROM users;
+INSERT INTO user_email_claims (email_lc, user_id) SELECT email_lc, id FROM users;
+
+CREATE OR REPLACE FUNCTION users_claim_keys()
+RETURNS TRIGGER AS $func$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        IF TG_OP = 'DELETE' OR OLD.username_lc IS DISTINCT FROM NEW.username_lc THEN
+            DELETE FROM user_username_claims WHERE username_lc = OLD.username_lc AND user_id = OLD.id;
+        END IF;
+        IF TG_OP = 'DELETE' OR OLD.email_lc IS DISTINCT FROM NEW.email_lc THEN
+            DELETE FROM user_email_claims WHERE email_lc = OLD.email_lc AND user_id = OLD.id;
+        END IF;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        IF TG_OP = 'INSERT' OR OLD.username_lc IS DISTINCT FROM NEW.username_lc THEN
+            INSERT INTO user_username_claims (username_lc, user_id) VALUES (NEW.username_lc, NEW.id);
+        END IF;
+        IF TG_OP = 'INSERT' OR OLD.email_lc IS DISTINCT FROM NEW.email_lc THEN
+            INSERT INTO user_email_claims (email_lc, user_id) VALUES (NEW.email_lc, NEW.id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END
+$func$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_users_claim_keys
+AFTER INSERT OR UPDATE OR DELETE ON users
+FOR EACH ROW EXECUTE FUNCTION users_claim_keys();
+
+CREATE TRIGGER trg_users_set_updated_at
+BEFORE UPDATE ON users
+FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+
+-- Indexes from 005-008, now created on every partition
+CREATE INDEX idx_users_username_lc ON users (username_lc);
+CREATE INDEX idx_users_first_name_lc_trgm ON users USING gin (first_name_lc gin_trgm_ops);
+CREATE INDEX idx_users_last_name_lc_trgm ON users USING gin (last_name_lc gin_trgm_ops);
+CREATE INDEX idx_users_phone_rev ON users (phone_rev text_pattern_ops);
+CREATE INDEX idx_users_live_created_at ON users (created_at, id) WHERE deleted = false;
+CREATE INDEX idx_users_live_updated_at ON users (updated_at, id) WHERE deleted = false;
+CREATE INDEX idx_users_live_username   ON users (username, id)   WHERE deleted = false;
+CREATE INDEX idx_users_live_email      ON users (email, id)      WHERE deleted = false;
+CREATE INDEX idx_users_live_first_name ON users (first_name, id) WHERE deleted = false;
+CREATE INDEX idx_users_live_last_name  ON users (last_name, id)  WHERE deleted = false;
+CREATE INDEX idx_users_live_email_lc   ON users (email_lc, id)   WHERE deleted = false;
+CREATE INDEX idx_users_live_phone      ON users (phone, id)      WHERE deleted = false;
+CREATE INDEX idx_users_deleted_updated_at ON users (updated_at) WHERE deleted = true;
+
+ANALYZE users;
@@ -0,0 +1,14 @@
+-- 010-create-user-shard-directory.sql
+-- Used only with user.sharding.enabled=true, on the primary database: which shard holds a user,
+-- for the keys that do not determine the shard themselves (usernames are routed by hash).
+CREATE TABLE user_shard_directory (
+    kind TEXT NOT NULL,                 -- id | email | phone
+    lookup_key TEXT NOT NULL,           -- id as text, lowercased email, canonical phone
+    user_id uuid NOT NULL,
+    shard INT NOT NULL,
+    PRIMARY KEY (kind, lookup_key, user_id)
+);
+
+-- Ids and emails belong to one user across all shards; phones may be shared
+CREATE UNIQUE INDEX ux_user_shard_directory_key ON user_shard_directory (kind, lookup_key)
+    WHERE kind <> 'phone';
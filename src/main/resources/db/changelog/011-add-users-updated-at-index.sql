@@ -0,0 +1,4 @@
+-- 011-add-users-updated-at-index.sql
+-- Keyset order for changesSince: every row, live and soft-deleted (tombstones), by (updated_at, id).
+-- The partial indexes from 007/009 each cover only one side of the deleted flag.
+CREATE INDEX idx_users_updated_at_id ON users (updated_at, id);
@@ -0,0 +1,83 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Unit tests for SchemaVersionVerifier.
+ */
+class SchemaVersionVerifierTest {
+
+    private static final String CHANGE_LOG = "classpath:db/changelog/db.changelog-master.yaml";
+
+    private NamedParameterJdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(NamedParameterJdbcTemplate.class);
+    }
+
+    private SchemaVersionVerifier verifier(String mode) {
+        return new SchemaVersionVerifier(jdbc, new DefaultResourceLoader(), CHANGE_LOG, "databasechangelog", mode);
+    }
+
+    private void applied(List<String> ids) {
+        when(jdbc.queryForList(anyString(), anyMap(), eq(String.class))).thenReturn(ids);
+    }
+
+    @Test
+    @DisplayName("reads changeSet ids from the master changelog in order")
+    void readsChangeLog() throws Exception {
+        List<String> ids = verifier("fail").expectedChangeSets();
+
+        assertThat(ids).startsWith("001-create-users", "002-seed-users").contains("004-add-users-version");
+    }
+
+    @Test
+    @DisplayName("passes when every changeSet is recorded")
+    void upToDate() throws Exception {
+        SchemaVersionVerifier verifier = verifier("fail");
+        applied(verifier.expectedChangeSets());
+
+        assertThatCode(() -> verifier.run(new DefaultApplicationArguments())).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("fails startup when a changeSet is missing")
+    void behind() {
+        applied(List.of("001-create-users", "002-seed-users"));
+
+        assertThatThrownBy(() -> verifier("fail").run(new DefaultApplicationArguments()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("003-create-processed-messages")
+            .hasMessageContaining("migrate");
+    }
+
+    @Test
+    @DisplayName("warn mode logs instead of failing, off mode skips the query")
+    void warnAndOff() {
+        applied(List.of());
+        assertThatCode(() -> verifier("warn").run(new DefaultApplicationArguments())).doesNotThrowAnyException();
+
+        NamedParameterJdbcTemplate unused = mock(NamedParameterJdbcTemplate.class);
+        SchemaVersionVerifier off = new SchemaVersionVerifier(unused, new DefaultResourceLoader(), CHANGE_LOG,
+            "databasechangelog", "off");
+        assertThatCode(() -> off.run(new DefaultApplicationArguments())).doesNotThrowAnyException();
+        verifyNoInteractions(unused);
+    }
+}
@@ -0,0 +1,69 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.servlet.ServletManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Unit tests for SecurityConfig, against the actuator endpoints it protects.
+ */
+@SpringBootTest(classes = SecurityConfigTest.ActuatorOnly.class,
+    properties = "user.jfr.dump-dir=${java.io.tmpdir}/security-config-test-jfr")
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    /** Web, security and actuator only: no database or broker. */
+    @Configuration
+    @ImportAutoConfiguration({
+        DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class,
+        JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class,
+        SecurityAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class,
+        EndpointAutoConfiguration.class, WebEndpointAutoConfiguration.class,
+        ManagementContextAutoConfiguration.class, ServletManagementContextAutoConfiguration.class
+    })
+    @Import({ SecurityConfig.class, JfrConfig.class })
+    static class ActuatorOnly {
+    }
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("an authenticated POST starts a JFR recording without a CSRF token, DELETE stops it")
+    void jfrControl_needsNoCsrfToken() throws Exception {
+        mvc.perform(post("/actuator/jfr/start").with(httpBasic("admin", "secret")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.started").value(true));
+
+        mvc.perform(delete("/actuator/jfr").with(httpBasic("admin", "secret")))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("actuator write operations still require authentication")
+    void jfrControl_requiresAuthentication() throws Exception {
+        mvc.perform(post("/actuator/jfr/start")).andExpect(status().isUnauthorized());
+    }
+}
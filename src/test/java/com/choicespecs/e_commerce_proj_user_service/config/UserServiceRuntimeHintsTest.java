@@ -0,0 +1,47 @@
+package com.choicespecs.e_commerce_proj_user_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceSearchEvent;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceUpdatedEvent;
+
+/**
+ * Unit tests for UserServiceRuntimeHints.
+ */
+class UserServiceRuntimeHintsTest {
+
+    private RuntimeHints hints;
+
+    @BeforeEach
+    void setUp() {
+        hints = new RuntimeHints();
+        new UserServiceRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    @DisplayName("event subclasses and command DTOs are registered for Jackson binding")
+    void jsonTypes() throws Exception {
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserServiceUpdatedEvent.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserServiceSearchEvent.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(UserServiceUpdatedEvent.class.getMethod("getChanges")))
+            .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserRequest.class)).accepts(hints);
+    }
+
+    @Test
+    @DisplayName("the entity and the changelog resources are registered")
+    void entityAndChangelog() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserEntity.class)
+            .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/changelog/db.changelog-master.yaml")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/changelog/001-create-users.sql")).accepts(hints);
+    }
+}
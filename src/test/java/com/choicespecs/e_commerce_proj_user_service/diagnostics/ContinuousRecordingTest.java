@@ -0,0 +1,66 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Unit tests for ContinuousRecording.
+ */
+class ContinuousRecordingTest {
+
+    @TempDir
+    Path dumpDir;
+
+    private ContinuousRecording recording;
+
+    @BeforeEach
+    void setUp() {
+        recording = new ContinuousRecording(Duration.ofMinutes(5), 16 * 1024 * 1024, dumpDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording.stop();
+    }
+
+    @Test
+    @DisplayName("dump contains the custom command events emitted while running")
+    void dumpContainsCustomEvents() throws Exception {
+        assertThat(recording.start()).isTrue();
+        assertThat(recording.start()).isFalse();
+
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        event.action = "get";
+        event.outcome = "success";
+        event.commit();
+
+        Path file = recording.dump();
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events)
+            .filteredOn(e -> e.getEventType().getName().equals("com.choicespecs.user.Command"))
+            .singleElement()
+            .satisfies(e -> assertThat(e.getString("action")).isEqualTo("get"));
+    }
+
+    @Test
+    @DisplayName("dump without a running recording is rejected")
+    void dumpRequiresRunning() {
+        assertThat(recording.isRunning()).isFalse();
+        assertThatThrownBy(recording::dump).isInstanceOf(IllegalStateException.class);
+        assertThat(recording.stop()).isNull();
+    }
+}
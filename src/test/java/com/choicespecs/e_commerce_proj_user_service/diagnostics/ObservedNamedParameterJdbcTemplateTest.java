@@ -0,0 +1,55 @@
+package com.choicespecs.e_commerce_proj_user_service.diagnostics;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for ObservedNamedParameterJdbcTemplate and SlowQueryLog.
+ */
+class ObservedNamedParameterJdbcTemplateTest {
+
+    @Test
+    @DisplayName("statements over the threshold are logged with parameter types, not values")
+    @SuppressWarnings("unchecked")
+    void recordsSlowStatement() {
+        JdbcOperations jdbc = mock(JdbcOperations.class);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(List.of("a", "b"));
+        SlowQueryLog log = new SlowQueryLog(10);
+        ObservedNamedParameterJdbcTemplate template =
+            new ObservedNamedParameterJdbcTemplate(jdbc, log, 0, 0.0, new SimpleMeterRegistry());
+
+        template.query("SELECT  username\n FROM users WHERE email = :email", Map.of("email", "x@example.com"),
+            (rs, i) -> rs.getString(1));
+
+        assertThat(log.recent()).singleElement().satisfies(q -> {
+            assertThat(q.getSql()).isEqualTo("SELECT username FROM users WHERE email = :email");
+            assertThat(q.getParameterTypes()).containsExactly(Map.entry("email", "string"));
+            assertThat(q.getRows()).isEqualTo(2);
+            assertThat(q.getPlanStatus()).isEqualTo(SlowQuery.PlanStatus.NOT_SAMPLED);
+        });
+        template.shutdown();
+    }
+
+    @Test
+    @DisplayName("the log keeps only the newest entries")
+    void ringBufferDropsOldest() {
+        SlowQueryLog log = new SlowQueryLog(2);
+        for (int i = 0; i < 3; i++) {
+            log.add(new SlowQuery(null, i, "q" + i, Map.of(), null, SlowQuery.PlanStatus.NOT_SAMPLED));
+        }
+
+        assertThat(log.recent()).extracting(SlowQuery::getSql).containsExactly("q2", "q1");
+    }
+}
@@ -5,6 +5,9 @@
 
 package com.choicespecs.e_commerce_proj_user_service.event;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import org.junit.jupiter.api.DisplayName;
@@ -26,8 +29,10 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
 import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+import com.choicespecs.e_commerce_proj_user_service.diagnostics.StageTimings;
 import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
 import com.choicespecs.e_commerce_proj_user_service.model.ActionType;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
 
 /**
  * Unit tests for EventPublisher.
@@ -129,6 +134,44 @@ public class EventPublisherTest {
             assertThat(payloadCaptor.getValue()).isInstanceOf(UserServiceUpdatedEvent.class);
         }
 
+        @Test
+        void publishUserUpdatedEvent_delta_carriesOnlyChangesAndHeaders() {
+            UserEntity user = sampleUser();
+            user.setVersion(7L);
+            Map<String, FieldChange> changes = new LinkedHashMap<>();
+            changes.put(FieldConstants.PHONE_FIELD, new FieldChange("111", "222"));
+            changes.put(FieldConstants.EMAIL_FIELD, new FieldChange("a@x.io", "b@x.io"));
+
+            publisher.publishUserUpdatedEvent(user, changes, UserServiceUpdatedEvent.PayloadType.DELTA);
+
+            verify(rabbitTemplate).convertAndSend(eq(RabbitMQConstants.USER_EXCHANGE), eq(RabbitMQConstants.USER_UPDATED_ROUTING_KEY), payloadCaptor.capture(), mppCaptor.capture());
+            UserServiceUpdatedEvent event = (UserServiceUpdatedEvent) payloadCaptor.getValue();
+            assertThat(event.getPayloadType()).isEqualTo(UserServiceUpdatedEvent.PayloadType.DELTA);
+            assertThat(event.getVersion()).isEqualTo(7L);
+            assertThat(event.getChanges()).containsExactlyEntriesOf(changes);
+            assertThat(event.getUser()).isNull();
+
+            Message processed = mppCaptor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+            assertThat(processed.getMessageProperties().getHeaders())
+                .containsEntry(FieldConstants.HEADER_CHANGED_FIELDS_FIELD, "phone,email")
+                .containsEntry(FieldConstants.HEADER_USER_VERSION_FIELD, 7L);
+        }
+
+        @Test
+        void publishUserUpdatedEvent_snapshot_includesFullRecord() {
+            UserEntity user = sampleUser();
+            user.setUsername("jdoe");
+            Map<String, FieldChange> changes = Map.of(FieldConstants.USERNAME_FIELD, new FieldChange("jd", "jdoe"));
+
+            publisher.publishUserUpdatedEvent(user, changes, UserServiceUpdatedEvent.PayloadType.SNAPSHOT);
+
+            verify(rabbitTemplate).convertAndSend(eq(RabbitMQConstants.USER_EXCHANGE), eq(RabbitMQConstants.USER_UPDATED_ROUTING_KEY), payloadCaptor.capture(), mppCaptor.capture());
+            UserServiceUpdatedEvent event = (UserServiceUpdatedEvent) payloadCaptor.getValue();
+            assertThat(event.getPayloadType()).isEqualTo(UserServiceUpdatedEvent.PayloadType.SNAPSHOT);
+            assertThat(event.getUser().getUsername()).isEqualTo("jdoe");
+            assertThat(event.getChanges()).isEqualTo(changes);
+        }
+
         @Test
         void publishUserReadEvent_setsHeadersAndContentType() {
             String requestId = "req-123";
@@ -150,6 +193,25 @@ public class EventPublisherTest {
                 .isEqualTo(FieldConstants.JSON_CONTENT_TYPE);
         }
 
+        @Test
+        void publishUserReadEvent_attachesStageTimings_whenEnabled() {
+            publisher.setStageTimingHeaders(true);
+            StageTimings timings = StageTimings.begin();
+            timings.record(StageTimings.Stage.DB, 2_500_000);
+            try {
+                publisher.publishUserReadEvent("req-t", sampleUser());
+
+                verify(rabbitTemplate).convertAndSend(eq(RabbitMQConstants.USER_EXCHANGE), eq(RabbitMQConstants.USER_READ_ROUTING_KEY), payloadCaptor.capture(), mppCaptor.capture());
+                Message processed = mppCaptor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+
+                assertThat((String) processed.getMessageProperties().getHeader(FieldConstants.HEADER_SERVER_TIMING_FIELD))
+                    .startsWith("db;dur=2.500, serialize;dur=");
+                assertThat(timings.has(StageTimings.Stage.SEND)).isTrue();
+            } finally {
+                StageTimings.end();
+            }
+        }
+
         @Test
         void publishUserGetNotFound_setsHeaderOnly_contentTypeUnchanged() {
             String requestId = "req-404";
@@ -0,0 +1,108 @@
+package com.choicespecs.e_commerce_proj_user_service.event;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.model.FieldChange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for UpdatedEventDebouncer.
+ */
+class UpdatedEventDebouncerTest {
+
+    private static final UserServiceUpdatedEvent.PayloadType DELTA = UserServiceUpdatedEvent.PayloadType.DELTA;
+
+    private UpdatedEventDebouncer.Sink sink;
+    private SimpleMeterRegistry registry;
+    private UpdatedEventDebouncer debouncer;
+
+    @BeforeEach
+    void setUp() {
+        sink = mock(UpdatedEventDebouncer.Sink.class);
+        registry = new SimpleMeterRegistry();
+        debouncer = new UpdatedEventDebouncer(sink, 100, 400, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        debouncer.close();
+    }
+
+    private static UserEntity user(UUID id) {
+        UserEntity u = new UserEntity();
+        u.setId(id);
+        return u;
+    }
+
+    @Test
+    @DisplayName("updates inside the window merge into one event with first old / last new values")
+    @SuppressWarnings("unchecked")
+    void mergesBurst() {
+        UserEntity u = user(UUID.randomUUID());
+
+        debouncer.submit(u, Map.of("phone", new FieldChange("1", "2")), DELTA);
+        debouncer.submit(u, Map.of("phone", new FieldChange("2", "3")), DELTA);
+        debouncer.submit(u, Map.of("email", new FieldChange("a", "b")), DELTA);
+
+        ArgumentCaptor<Map<String, FieldChange>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(sink, timeout(1000).times(1)).publish(eq(u), changes.capture(), eq(DELTA));
+        assertThat(changes.getValue())
+            .containsEntry("phone", new FieldChange("1", "3"))
+            .containsEntry("email", new FieldChange("a", "b"));
+        assertThat(registry.counter("user.event.coalesced", "reason", "merged").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("a delete discards the pending update")
+    void deleteSupersedes() {
+        UserEntity u = user(UUID.randomUUID());
+
+        debouncer.submit(u, Map.of("phone", new FieldChange("1", "2")), DELTA);
+        debouncer.discard(u.getId());
+
+        verify(sink, after(300).never()).publish(any(), any(), any());
+        assertThat(registry.counter("user.event.coalesced", "reason", "superseded").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("a continuous burst is still flushed once max-delay is reached")
+    void maxDelayBoundsBurst() throws InterruptedException {
+        UserEntity u = user(UUID.randomUUID());
+
+        for (int i = 0; i < 12; i++) {
+            debouncer.submit(u, Map.of("phone", new FieldChange(String.valueOf(i), String.valueOf(i + 1))), DELTA);
+            Thread.sleep(50);
+        }
+
+        verify(sink, timeout(1000).atLeastOnce()).publish(eq(u), any(), eq(DELTA));
+        assertThat(registry.counter("user.event.coalesced.flushes", "trigger", "max_delay").count()).isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("close publishes what is still pending")
+    void closeFlushes() {
+        UserEntity u = user(UUID.randomUUID());
+        debouncer.submit(u, Map.of("phone", new FieldChange("1", "2")), DELTA);
+
+        debouncer.close();
+
+        verify(sink).publish(eq(u), any(), eq(DELTA));
+        assertThat(debouncer.pendingCount()).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package com.choicespecs.e_commerce_proj_user_service.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.SystemConfig;
+
+/**
+ * In-process AMQP 0-9-1 broker (Qpid Broker-J, memory store) for the load harness.
+ * Accepts {@code guest/guest} on a free local port.
+ */
+final class EmbeddedBroker implements AutoCloseable {
+
+    private final SystemLauncher launcher = new SystemLauncher();
+    private final int port;
+    private final Path workDir;
+
+    private EmbeddedBroker(int port, Path workDir) {
+        this.port = port;
+        this.workDir = workDir;
+    }
+
+    static EmbeddedBroker start() throws Exception {
+        EmbeddedBroker broker = new EmbeddedBroker(freePort(), Files.createTempDirectory("qpid-loadtest"));
+        broker.launch();
+        return broker;
+    }
+
+    private void launch() throws Exception {
+        URL config = EmbeddedBroker.class.getResource("/loadtest/qpid-config.json");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION, config.toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, Map.of(
+            "qpid.amqp_port", port,
+            "qpid.work_dir", workDir.toString()));
+        launcher.startup(attributes);
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.choicespecs.e_commerce_proj_user_service.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load-test settings, read from system properties so runs can be tuned from the command line:
+ *
+ * <pre>
+ * -Dload.rate=500            target commands per second (open loop)
+ * -Dload.duration=60         measured seconds
+ * -Dload.warmup=10           unmeasured seconds before measuring
+ * -Dload.threads=16          worker threads calling the listener
+ * -Dload.seed-users=1000     users created before the run
+ * -Dload.mix=create:10,update:20,get:50,search:20
+ * </pre>
+ */
+final class LoadProfile {
+
+    final int rate;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final int threads;
+    final int seedUsers;
+    final Map<String, Integer> mix;
+
+    private LoadProfile(int rate, int durationSeconds, int warmupSeconds, int threads, int seedUsers, Map<String, Integer> mix) {
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.threads = threads;
+        this.seedUsers = seedUsers;
+        this.mix = mix;
+    }
+
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+            Integer.getInteger("load.rate", 200),
+            Integer.getInteger("load.duration", 30),
+            Integer.getInteger("load.warmup", 5),
+            Integer.getInteger("load.threads", 16),
+            Integer.getInteger("load.seed-users", 1000),
+            parseMix(System.getProperty("load.mix", "create:10,update:20,get:50,search:20")));
+    }
+
+    /**
+     * @param spec comma-separated {@code action:weight} pairs
+     */
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(kv[0].trim().toLowerCase(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no positive weights");
+        }
+        return mix;
+    }
+
+    @Override
+    public String toString() {
+        return "rate=" + rate + "/s, duration=" + durationSeconds + "s, warmup=" + warmupSeconds
+            + "s, threads=" + threads + ", seedUsers=" + seedUsers + ", mix=" + mix;
+    }
+}
@@ -0,0 +1,60 @@
+package com.choicespecs.e_commerce_proj_user_service.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects per-action latencies during the measured phase and renders the summary table.
+ *
+ * <p>Latency is measured from the <i>intended</i> start time of each command, so a backed-up
+ * worker pool shows up as latency instead of silently lowering the offered rate.</p>
+ */
+final class LoadReport {
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+
+    void record(String action, long latencyNanos) {
+        latencies.computeIfAbsent(action, a -> new ConcurrentLinkedQueue<>()).add(latencyNanos);
+    }
+
+    /**
+     * @param seconds    length of the measured phase
+     * @param statements JDBC statements issued per action during the measured phase
+     * @param failures   failed commands per action during the measured phase
+     */
+    String render(LoadProfile profile, double seconds, ToLongFunction<String> statements, ToLongFunction<String> failures) {
+        StringBuilder out = new StringBuilder();
+        out.append("Load profile: ").append(profile).append('\n');
+        out.append(String.format("%-8s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+            "action", "count", "ops/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "stmt/op"));
+        long total = 0;
+        for (String action : profile.mix.keySet()) {
+            long[] sorted = latencies.getOrDefault(action, new ConcurrentLinkedQueue<>())
+                .stream().mapToLong(Long::longValue).sorted().toArray();
+            int n = sorted.length;
+            total += n;
+            out.append(String.format("%-8s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                action, n, n / seconds, failures.applyAsLong(action),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.95)),
+                millis(percentile(sorted, 0.99)), millis(n == 0 ? 0 : sorted[n - 1]),
+                n == 0 ? 0.0 : (double) statements.applyAsLong(action) / n));
+        }
+        out.append(String.format("%-8s %9d %9.1f%n", "total", total, total / seconds));
+        return out.toString();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
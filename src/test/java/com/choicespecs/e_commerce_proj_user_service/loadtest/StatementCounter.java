@@ -0,0 +1,75 @@
+package com.choicespecs.e_commerce_proj_user_service.loadtest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Counts JDBC statements per load-test action.
+ *
+ * <p>The {@link DataSource} bean is wrapped so that every statement created on a connection is
+ * attributed to the action the calling thread is currently running ({@link #begin(String)}).
+ * Statements issued outside an action (migrations, scheduled jobs) are not counted.</p>
+ */
+final class StatementCounter implements BeanPostProcessor {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    private static final Map<String, LongAdder> COUNTS = new ConcurrentHashMap<>();
+
+    static void begin(String action) {
+        CURRENT.set(action);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static long count(String action) {
+        LongAdder adder = COUNTS.get(action);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    static void reset() {
+        COUNTS.clear();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[] { type },
+            (p, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Connection connection && type == DataSource.class) {
+                    return proxy(Connection.class, connection);
+                }
+                if (type == Connection.class && STATEMENT_METHODS.contains(method.getName())) {
+                    String action = CURRENT.get();
+                    if (action != null) {
+                        COUNTS.computeIfAbsent(action, a -> new LongAdder()).increment();
+                    }
+                }
+                return result;
+            });
+    }
+}
@@ -0,0 +1,270 @@
+package com.choicespecs.e_commerce_proj_user_service.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+import com.choicespecs.e_commerce_proj_user_service.messaging.UserServiceListener;
+import com.choicespecs.e_commerce_proj_user_service.repository.MigratedPostgres;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+
+/**
+ * Offline load harness: the full application against an in-process AMQP broker and an embedded
+ * Postgres, no docker or network needed.
+ *
+ * <p>Commands are offered to {@link UserServiceListener} at a fixed rate, in the configured
+ * create/update/get/search mix, from a worker pool (see {@link LoadProfile} for the knobs). Each
+ * command runs the real parsing, dedup, database and event-publishing path. Broker delivery to the
+ * consumer is not part of the measured latency.</p>
+ *
+ * <p>Reports throughput, latency percentiles, failures and JDBC statements per action, printed and
+ * written to {@code target/loadtest-report.txt}. Excluded from the default build, run with:</p>
+ * <pre>
+ * mvn -Ploadtest test -Dload.rate=500 -Dload.duration=60
+ * </pre>
+ */
+@Tag("load")
+@SpringBootTest(properties = {
+    // Qpid has no x-message-ttl / dead-letter support for the delayed-retry topology
+    "user.retry.enabled=false",
+    "logging.level.org.springframework.jdbc.core=WARN",
+    "logging.level.com.choicespecs=WARN"
+})
+class UserServiceLoadTest {
+
+    // The shared embedded Postgres, already migrated: no Liquibase run at startup
+    private static final MigratedPostgres.Database POSTGRES = MigratedPostgres.newDatabase();
+    private static final EmbeddedBroker BROKER;
+
+    static {
+        try {
+            BROKER = EmbeddedBroker.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start embedded infrastructure", e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void infrastructure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.rabbitmq.host", () -> "localhost");
+        registry.add("spring.rabbitmq.port", BROKER::getPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+    }
+
+    @TestConfiguration
+    static class CountingConfig {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        BROKER.close();
+    }
+
+    @Autowired
+    UserServiceListener listener;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    AmqpAdmin amqpAdmin;
+
+    @Autowired
+    RabbitTemplate rabbitTemplate;
+
+    @Test
+    void offeredLoad() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        List<String> seeded = seed(profile.seedUsers);
+
+        // Unmeasured warm-up (JIT, connection pool, caches), then reset counters and measure
+        run(profile, seeded, profile.warmupSeconds, null);
+        StatementCounter.reset();
+        // Search failures are replied as SEARCH_ERROR events, not counted as failed commands
+        // (a named, non-exclusive queue: Qpid drops server-named ones with the declaring channel)
+        Queue searchReplies = new Queue("loadtest-search-replies", false, false, false);
+        amqpAdmin.declareQueue(searchReplies);
+        amqpAdmin.declareBinding(BindingBuilder.bind(searchReplies)
+            .to(new TopicExchange(RabbitMQConstants.USER_EXCHANGE))
+            .with(RabbitMQConstants.USER_SEARCH_ROUTING_KEY));
+        Map<String, Double> failuresBefore = failures(profile);
+        LoadReport report = new LoadReport();
+        run(profile, seeded, profile.durationSeconds, report);
+        Map<String, Double> failuresAfter = failures(profile);
+
+        String summary = report.render(profile, profile.durationSeconds, StatementCounter::count,
+            action -> Math.round(failuresAfter.get(action) - failuresBefore.get(action)));
+        System.out.println(summary);
+        Path out = Path.of("target", "loadtest-report.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, summary);
+
+        assertThat(summary).contains("total");
+        if (profile.mix.getOrDefault("search", 0) > 0) {
+            assertThat(replyTypes(searchReplies.getName())).containsOnlyKeys("SEARCH_SUCCESS");
+        }
+    }
+
+    /**
+     * Offers commands at {@code profile.rate} for {@code seconds}. Each command is scheduled for an
+     * intended start time; latency is taken from that time, not from when a worker picked it up.
+     */
+    private void run(LoadProfile profile, List<String> seeded, int seconds, LoadReport report) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(profile.threads);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.rate;
+        long start = System.nanoTime();
+        long total = (long) profile.rate * seconds;
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            String action = pick(profile.mix);
+            workers.execute(() -> {
+                StatementCounter.begin(action);
+                try {
+                    execute(action, seeded);
+                } finally {
+                    StatementCounter.end();
+                }
+                if (report != null) {
+                    report.record(action, System.nanoTime() - intended);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.MINUTES);
+    }
+
+    private void execute(String action, List<String> seeded) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String n = seeded.get(random.nextInt(seeded.size()));
+        String requestId = UUID.randomUUID().toString();
+        String messageId = UUID.randomUUID().toString();
+        ObjectNode payload = objectMapper.createObjectNode().put("action", action);
+        switch (action) {
+            case "create": {
+                String id = UUID.randomUUID().toString().substring(0, 12);
+                payload.set("user", user("new-" + id, "new-" + id + "@load.test", "555" + random.nextInt(1_000_000, 9_999_999)));
+                break;
+            }
+            case "update":
+                payload.set("user", objectMapper.createObjectNode()
+                    .put("username", "load-" + n)
+                    .put("phone", "555" + random.nextInt(1_000_000, 9_999_999)));
+                break;
+            case "get":
+                payload.set("user", objectMapper.createObjectNode().put("email", "load-" + n + "@load.test"));
+                break;
+            case "search":
+                payload.put("q", "load-" + n.substring(0, Math.min(2, n.length())))
+                    .put("size", 50)
+                    .put("sortBy", "createdAt")
+                    .put("sortDir", "desc");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported action in load.mix: " + action);
+        }
+        listener.receiveMessage(payload, requestId, messageId);
+    }
+
+    private List<String> seed(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String n = String.valueOf(i);
+            ObjectNode payload = objectMapper.createObjectNode().put("action", "create");
+            payload.set("user", user("load-" + n, "load-" + n + "@load.test", "555" + (1_000_000 + i)));
+            listener.receiveMessage(payload, null, null);
+            ids.add(n);
+        }
+        return ids;
+    }
+
+    private JsonNode user(String username, String email, String phone) {
+        return objectMapper.createObjectNode()
+            .put("username", username)
+            .put("email", email)
+            .put("phone", phone)
+            .put("firstName", "Load")
+            .put("lastName", "Test");
+    }
+
+    /** Drains {@code queue}, counting the replies by event {@code type}. */
+    private Map<String, Integer> replyTypes(String queue) throws IOException {
+        Map<String, Integer> types = new HashMap<>();
+        Message reply;
+        while ((reply = rabbitTemplate.receive(queue, 1000)) != null) {
+            types.merge(objectMapper.readTree(reply.getBody()).path("type").asText(), 1, Integer::sum);
+        }
+        return types;
+    }
+
+    private static String pick(Map<String, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int r = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) {
+                return e.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private Map<String, Double> failures(LoadProfile profile) {
+        Map<String, Double> counts = new HashMap<>();
+        for (String action : profile.mix.keySet()) {
+            counts.put(action, Search.in(meterRegistry).name("user.command")
+                .tags("action", action, "outcome", "failure")
+                .timers().stream().mapToDouble(t -> t.count()).sum());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,161 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.repository.MigratedPostgres;
+import com.choicespecs.e_commerce_proj_user_service.repository.ShardedUserJdbcRepository;
+import com.choicespecs.e_commerce_proj_user_service.repository.UserJdbcRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for ListenerWarmup.
+ */
+class ListenerWarmupTest {
+
+    private RabbitListenerEndpointRegistry registry;
+    private MessageListenerContainer container;
+    private DataSource dataSource;
+    private UserJdbcRepository repository;
+    private ObjectProvider<ShardedUserJdbcRepository> sharded;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = mock(RabbitListenerEndpointRegistry.class);
+        container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainers()).thenReturn(List.of(container));
+        dataSource = mock(DataSource.class);
+        repository = mock(UserJdbcRepository.class);
+        when(repository.searchUserPage(any(UserSearchRequest.class))).thenReturn(Page.<UserEntity>empty());
+        meterRegistry = new SimpleMeterRegistry();
+        sharded = mock(ObjectProvider.class);
+    }
+
+    private ListenerWarmup warmup(int connections) {
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return new ListenerWarmup(registry, dataSource, repository, sharded, mapper, new Jackson2JsonMessageConverter(),
+            meterRegistry, true, connections, 5, 50, Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("opens connections and runs the query shapes before starting the listeners")
+    void warmsUpThenStartsListeners() throws Exception {
+        when(dataSource.getConnection()).thenAnswer(i -> mock(Connection.class));
+        ListenerWarmup warmup = warmup(3);
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        warmup.run(new DefaultApplicationArguments());
+
+        InOrder order = inOrder(dataSource, repository, container);
+        order.verify(dataSource, times(3)).getConnection();
+        order.verify(repository, atLeast(5)).getUser(any());
+        order.verify(container).start();
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(meterRegistry.timer("user.warmup").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a failing warm-up still starts the listeners")
+    void failureStillStarts() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("down"));
+        ListenerWarmup warmup = warmup(2);
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verify(container).start();
+        assertThat(warmup.isListenersStarted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("warm-up searches use values that match nothing and leave out free text")
+    void searchesUseNonMatchingMarkers() throws Exception {
+        when(dataSource.getConnection()).thenAnswer(i -> mock(Connection.class));
+
+        warmup(1).run(new DefaultApplicationArguments());
+
+        ArgumentCaptor<UserSearchRequest> searches = ArgumentCaptor.forClass(UserSearchRequest.class);
+        // Two structured shapes per query iteration, nothing from the per-message pass
+        verify(repository, times(10)).searchUserPage(searches.capture());
+        assertThat(searches.getAllValues()).allSatisfy(req -> {
+            assertThat(req.getQ()).isNull();
+            assertThat(req.getUser().getLastName() != null ? req.getUser().getLastName() : req.getUser().getEmail())
+                .startsWith("warmup-");
+        });
+    }
+
+    @Test
+    @DisplayName("with sharding on, the query shapes also run on every shard")
+    void warmsEveryShard() throws Exception {
+        when(dataSource.getConnection()).thenAnswer(i -> mock(Connection.class));
+        UserJdbcRepository shard0 = mock(UserJdbcRepository.class);
+        UserJdbcRepository shard1 = mock(UserJdbcRepository.class);
+        ShardedUserJdbcRepository shardedRepository = mock(ShardedUserJdbcRepository.class);
+        when(shardedRepository.shardReaders()).thenReturn(List.of(shard0, shard1));
+        when(sharded.getIfAvailable()).thenReturn(shardedRepository);
+
+        warmup(1).run(new DefaultApplicationArguments());
+
+        for (UserJdbcRepository shard : List.of(repository, shard0, shard1)) {
+            verify(shard, times(15)).getUser(any());
+            verify(shard, times(10)).searchUserPage(any());
+        }
+    }
+
+    @Test
+    @DisplayName("every warm-up query shape runs against a migrated database without failing")
+    void warmsUpAgainstRealDatabase() throws Exception {
+        Logger logger = (Logger) LoggerFactory.getLogger(ListenerWarmup.class);
+        ListAppender<ILoggingEvent> logged = new ListAppender<>();
+        logged.start();
+        logger.addAppender(logged);
+        try {
+            dataSource = MigratedPostgres.newDatabase().dataSource();
+            repository = new UserJdbcRepository(new NamedParameterJdbcTemplate(dataSource), meterRegistry);
+
+            warmup(1).run(new DefaultApplicationArguments());
+        } finally {
+            logger.detachAppender(logged);
+        }
+
+        verify(container).start();
+        assertThat(logged.list).noneMatch(e -> e.getLevel().isGreaterOrEqual(Level.WARN));
+    }
+}
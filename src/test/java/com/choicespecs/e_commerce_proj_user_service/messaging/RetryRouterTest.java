@@ -0,0 +1,101 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.SQLTransientConnectionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for RetryRouter.
+ */
+@ExtendWith(MockitoExtension.class)
+class RetryRouterTest {
+
+    @Mock
+    RabbitTemplate rabbitTemplate;
+
+    private RetryRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new RetryRouter(rabbitTemplate, new RetryBackoff(3, 1000, 2.0, 10000), new SimpleMeterRegistry(), true);
+    }
+
+    private Message message(Integer attempt) {
+        MessageProperties props = new MessageProperties();
+        props.setConsumerQueue(RabbitMQConstants.USER_WRITE_QUEUE);
+        if (attempt != null) {
+            props.setHeader(FieldConstants.HEADER_RETRY_ATTEMPT_FIELD, attempt);
+        }
+        return new Message(new byte[0], props);
+    }
+
+    @Test
+    void transientFailure_isScheduledForRetryBackToOriginQueue() {
+        Message msg = message(null);
+
+        router.route(msg, new QueryTimeoutException("timeout"));
+
+        verify(rabbitTemplate).send(RabbitMQConstants.USER_RETRY_EXCHANGE, RabbitMQConstants.USER_WRITE_QUEUE, msg);
+        MessageProperties props = msg.getMessageProperties();
+        assertThat((Object) props.getHeader(FieldConstants.HEADER_RETRY_ATTEMPT_FIELD)).isEqualTo(1);
+        assertThat((Object) props.getHeader(FieldConstants.HEADER_RETRY_LEVEL_FIELD)).isEqualTo("1");
+    }
+
+    @Test
+    void wrappedTransientCause_isRetryable() {
+        Exception wrapped = new RuntimeException(new SQLTransientConnectionException("refused"));
+        assertThat(RetryRouter.isRetryable(wrapped)).isTrue();
+    }
+
+    @Test
+    void fatalFailure_isParkedImmediately() {
+        Message msg = message(null);
+
+        router.route(msg, new IllegalArgumentException("bad payload"));
+
+        verify(rabbitTemplate).send("", RabbitMQConstants.USER_PARKING_LOT_QUEUE, msg);
+        verify(rabbitTemplate, never()).send(eq(RabbitMQConstants.USER_RETRY_EXCHANGE), anyString(), any(Message.class));
+        assertThat((Object) msg.getMessageProperties().getHeader(FieldConstants.HEADER_PARK_REASON_FIELD)).isEqualTo("fatal");
+    }
+
+    @Test
+    void exhaustedRetries_areParked() {
+        Message msg = message(3);
+
+        router.route(msg, new QueryTimeoutException("still down"));
+
+        verify(rabbitTemplate).send("", RabbitMQConstants.USER_PARKING_LOT_QUEUE, msg);
+        assertThat((Object) msg.getMessageProperties().getHeader(FieldConstants.HEADER_PARK_REASON_FIELD)).isEqualTo("exhausted");
+        assertThat((Object) msg.getMessageProperties().getHeader(FieldConstants.HEADER_ORIGINAL_QUEUE_FIELD))
+            .isEqualTo(RabbitMQConstants.USER_WRITE_QUEUE);
+    }
+
+    @Test
+    void backoff_growsExponentiallyAndIsCapped() {
+        RetryBackoff backoff = new RetryBackoff(6, 1000, 4.0, 30000);
+        assertThat(backoff.delayFor(1)).isEqualTo(1000);
+        assertThat(backoff.delayFor(2)).isEqualTo(4000);
+        assertThat(backoff.delayFor(3)).isEqualTo(16000);
+        assertThat(backoff.delayFor(4)).isEqualTo(30000);
+    }
+}
@@ -0,0 +1,91 @@
+package com.choicespecs.e_commerce_proj_user_service.messaging;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mockito.InOrder;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+
+import com.choicespecs.e_commerce_proj_user_service.event.EventPublisher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for ShutdownDrain.
+ */
+class ShutdownDrainTest {
+
+    private MessageListenerContainer container;
+    private EventPublisher eventPublisher;
+    private InFlightCommands inFlight;
+    private SimpleMeterRegistry meterRegistry;
+    private ShutdownDrain drain;
+
+    @BeforeEach
+    void setUp() {
+        RabbitListenerEndpointRegistry registry = mock(RabbitListenerEndpointRegistry.class);
+        container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainers()).thenReturn(List.of(container));
+        when(container.isRunning()).thenReturn(true);
+        doAnswer(i -> {
+            i.<Runnable>getArgument(0).run();
+            return null;
+        }).when(container).stop(any(Runnable.class));
+        eventPublisher = mock(EventPublisher.class);
+        inFlight = new InFlightCommands();
+        meterRegistry = new SimpleMeterRegistry();
+        drain = new ShutdownDrain(registry, inFlight, eventPublisher, meterRegistry, Duration.ofMillis(300));
+    }
+
+    @Test
+    @DisplayName("stops consuming, waits for in-flight commands, then flushes pending events")
+    void drainsInOrder() throws Exception {
+        when(eventPublisher.pendingEventCount()).thenReturn(2);
+        inFlight.begin();
+        Thread worker = new Thread(() -> {
+            sleep(50);
+            inFlight.end();
+        });
+        worker.start();
+
+        drain.stop();
+
+        InOrder order = inOrder(container, eventPublisher);
+        order.verify(container).stop(any(Runnable.class));
+        order.verify(eventPublisher).flushPendingEvents();
+        assertThat(inFlight.count()).isZero();
+        assertThat(meterRegistry.counter("user.drain.abandoned").count()).isZero();
+        assertThat(meterRegistry.counter("user.drain.flushed").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.timer("user.drain.duration").count()).isEqualTo(1);
+        worker.join();
+    }
+
+    @Test
+    @DisplayName("commands still running at the deadline are counted as abandoned")
+    void countsAbandoned() {
+        inFlight.begin();
+
+        drain.stop();
+
+        assertThat(meterRegistry.counter("user.drain.abandoned").count()).isEqualTo(1.0);
+        assertThat(drain.isRunning()).isFalse();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
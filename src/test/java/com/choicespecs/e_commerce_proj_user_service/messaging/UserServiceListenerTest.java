@@ -1,24 +1,36 @@
 package com.choicespecs.e_commerce_proj_user_service.messaging;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 
 import com.choicespecs.e_commerce_proj_user_service.constants.FieldConstants;
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+import com.choicespecs.e_commerce_proj_user_service.dto.ChangesSinceRequest;
 import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
 import com.choicespecs.e_commerce_proj_user_service.model.User;
+import com.choicespecs.e_commerce_proj_user_service.service.MessageDeduplicator;
 import com.choicespecs.e_commerce_proj_user_service.service.UserService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class UserServiceListenerTest {
 
@@ -28,6 +40,18 @@ class UserServiceListenerTest {
     @Mock
     ObjectMapper objectMapper;
 
+    @Mock
+    MessageDeduplicator messageDeduplicator;
+
+    @Mock
+    RetryRouter retryRouter;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    InFlightCommands inFlightCommands = new InFlightCommands();
+
     @InjectMocks
     UserServiceListener listener;
 
@@ -115,6 +139,131 @@ class UserServiceListenerTest {
             verify(userService).getUser(request, "req-123");
             verifyNoMoreInteractions(userService);
         }
+
+        @Test
+        void changesSince_callsUserServiceChangesSince_withWholePayload() throws Exception {
+            // given
+            JsonNode payload = obj("{\"action\":\"changesSince\",\"since\":{\"updatedAt\":\"2026-01-01T00:00:00Z\"},\"limit\":100}");
+            ChangesSinceRequest request = new ChangesSinceRequest();
+            when(objectMapper.treeToValue(payload, ChangesSinceRequest.class)).thenReturn(request);
+
+            // when
+            listener.receiveMessage(payload, "req-9");
+
+            // then
+            verify(userService).changesSince(request, "req-9");
+            verifyNoMoreInteractions(userService);
+        }
+    }
+
+    @Nested
+    @DisplayName("receiveMessage deduplicates write commands by message id")
+    class DedupTests {
+
+        @Test
+        void duplicateDelete_isAcknowledgedWithoutCallingService() {
+            JsonNode payload = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\",\""+FieldConstants.EMAIL_FIELD+"\":\"x@example.com\"}");
+            when(messageDeduplicator.isDuplicate("msg-1")).thenReturn(true);
+
+            listener.receiveMessage(payload, null, "msg-1");
+
+            verifyNoInteractions(userService);
+            verify(messageDeduplicator, never()).markProcessed("msg-1");
+        }
+
+        @Test
+        void firstDelete_isProcessedAndRecorded() {
+            JsonNode payload = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\",\""+FieldConstants.EMAIL_FIELD+"\":\"x@example.com\"}");
+
+            listener.receiveMessage(payload, null, "msg-2");
+
+            verify(userService).deleteUser("x@example.com");
+            verify(messageDeduplicator).markProcessed("msg-2");
+        }
+
+        @Test
+        void failedDelete_isNotRecorded() {
+            JsonNode payload = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\"}");
+
+            listener.receiveMessage(payload, null, "msg-3");
+
+            verifyNoInteractions(userService);
+            verify(messageDeduplicator, never()).markProcessed("msg-3");
+        }
+
+        @Test
+        void get_isNeverDeduplicated() throws Exception {
+            JsonNode userJson = obj("{\"email\":\"get@example.com\"}");
+            JsonNode payload = REAL.createObjectNode()
+                    .put(FieldConstants.ACTION_FIELD, "GET")
+                    .set(FieldConstants.USER_FIELD, userJson);
+
+            listener.receiveMessage(payload, "req-9", "msg-4");
+
+            verify(userService).getUser(null, "req-9");
+            verifyNoInteractions(messageDeduplicator);
+        }
+    }
+
+    @Nested
+    @DisplayName("consumed messages hand failures to the retry router")
+    class RetryRoutingTests {
+
+        private Message amqp(String requestId) {
+            MessageProperties props = new MessageProperties();
+            props.setConsumerQueue(RabbitMQConstants.USER_WRITE_QUEUE);
+            if (requestId != null) {
+                props.setHeader(FieldConstants.HEADER_REQUEST_ID_FIELD, requestId);
+            }
+            return new Message(new byte[0], props);
+        }
+
+        @Test
+        void failingCommand_isRouted() {
+            JsonNode payload = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\",\""+FieldConstants.EMAIL_FIELD+"\":\"x@example.com\"}");
+            RuntimeException boom = new RuntimeException("db down");
+            doThrow(boom).when(userService).deleteUser("x@example.com");
+            Message message = amqp(null);
+
+            listener.receiveWriteCommand(payload, message);
+
+            verify(retryRouter).route(message, boom);
+        }
+
+        @Test
+        void successfulCommand_isNotRouted() {
+            JsonNode payload = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\",\""+FieldConstants.EMAIL_FIELD+"\":\"x@example.com\"}");
+
+            listener.receiveWriteCommand(payload, amqp(null));
+
+            verify(userService).deleteUser("x@example.com");
+            verifyNoInteractions(retryRouter);
+        }
+
+        @Test
+        void legacyQueue_ignoresOwnEventsWithoutAction() {
+            listener.receiveLegacyCommand(obj("{\"eventId\":\"e-1\"}"), amqp(null));
+
+            verifyNoInteractions(userService);
+            verifyNoInteractions(retryRouter);
+        }
+    }
+
+    @Nested
+    @DisplayName("commands are timed by action and outcome")
+    class MetricsTests {
+
+        @Test
+        void successAndFailure_areRecordedSeparately() {
+            JsonNode ok = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\",\""+FieldConstants.EMAIL_FIELD+"\":\"x@example.com\"}");
+            JsonNode bad = obj("{\""+FieldConstants.ACTION_FIELD+"\":\"DELETE\"}");
+
+            listener.receiveMessage(ok, null);
+            listener.receiveMessage(bad, null);
+
+            assertThat(meterRegistry.get("user.command").tags("action", "delete", "outcome", "success").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("user.command").tags("action", "delete", "outcome", "failure").timer().count()).isEqualTo(1);
+        }
     }
 
     @Nested
@@ -0,0 +1,44 @@
+package com.choicespecs.e_commerce_proj_user_service.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for PhoneNumbers.
+ */
+class PhoneNumbersTest {
+
+    @Test
+    @DisplayName("differently formatted entries of the same number share one canonical form")
+    void normalize_stripsFormatting() {
+        assertThat(PhoneNumbers.normalize("555-0100")).isEqualTo("5550100");
+        assertThat(PhoneNumbers.normalize("(555) 0100")).isEqualTo("5550100");
+        assertThat(PhoneNumbers.normalize("+1 555.0100")).isEqualTo("15550100");
+    }
+
+    @Test
+    @DisplayName("null stays null and values without digits are kept as entered")
+    void normalize_leavesUninterpretableValues() {
+        assertThat(PhoneNumbers.normalize(null)).isNull();
+        assertThat(PhoneNumbers.normalize("  n/a ")).isEqualTo("n/a");
+    }
+
+    @Test
+    @DisplayName("reversed digits turn a trailing-digits lookup into a prefix")
+    void reversedDigits() {
+        assertThat(PhoneNumbers.reversedDigits("01-00")).isEqualTo("0010");
+        assertThat(PhoneNumbers.reversedDigits("abc")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("only digits with phone punctuation look like a phone")
+    void looksLikePhone() {
+        assertThat(PhoneNumbers.looksLikePhone("+1 (555) 010-0")).isTrue();
+        assertThat(PhoneNumbers.looksLikePhone("0100")).isTrue();
+        assertThat(PhoneNumbers.looksLikePhone("john2")).isFalse();
+        assertThat(PhoneNumbers.looksLikePhone("--")).isFalse();
+        assertThat(PhoneNumbers.looksLikePhone(null)).isFalse();
+    }
+}
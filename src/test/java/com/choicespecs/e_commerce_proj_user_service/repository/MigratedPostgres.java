@@ -0,0 +1,88 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Test support: one embedded Postgres for the whole test run, with the master changelog applied
+ * once to a template database.
+ *
+ * <p>Each {@link #newDatabase()} is a fresh copy of that template ({@code CREATE DATABASE ...
+ * TEMPLATE}), so test classes never see each other's rows and no class starts its own server or
+ * re-runs the changelog. The server stops when the JVM exits.</p>
+ */
+public final class MigratedPostgres {
+
+    /** {@code users.partitions} for the template: enough partitions to exercise pruning, cheap to create. */
+    public static final int USERS_PARTITIONS = 4;
+
+    private static final String TEMPLATE = "users_template";
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static EmbeddedPostgres postgres;
+
+    /**
+     * A migrated database of its own.
+     *
+     * @param name     database name
+     * @param jdbcUrl  URL for Spring {@code spring.datasource.url}-style wiring (user and password {@code postgres})
+     */
+    public record Database(String name, DataSource dataSource, String jdbcUrl) {
+    }
+
+    private MigratedPostgres() {
+    }
+
+    /**
+     * @return a new database holding the fully migrated schema, changelog seed rows included
+     */
+    public static synchronized Database newDatabase() {
+        EmbeddedPostgres server = server();
+        String name = "users_test_" + DATABASES.incrementAndGet();
+        new JdbcTemplate(server.getPostgresDatabase()).execute("CREATE DATABASE " + name + " TEMPLATE " + TEMPLATE);
+        return new Database(name, server.getDatabase("postgres", name), server.getJdbcUrl("postgres", name));
+    }
+
+    private static EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded Postgres", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // the process is exiting anyway
+                }
+            }));
+            new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + TEMPLATE);
+            migrate(postgres.getDatabase("postgres", TEMPLATE));
+        }
+        return postgres;
+    }
+
+    private static void migrate(DataSource dataSource) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setChangeLogParameters(Map.of("users.partitions", String.valueOf(USERS_PARTITIONS)));
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        try {
+            liquibase.afterPropertiesSet();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not migrate the template database", e);
+        }
+    }
+}
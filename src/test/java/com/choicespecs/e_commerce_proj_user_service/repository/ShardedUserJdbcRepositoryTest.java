@@ -0,0 +1,210 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests ShardedUserJdbcRepository against three shard databases and a directory database,
+ * all on one embedded Postgres instance.
+ */
+class ShardedUserJdbcRepositoryTest {
+
+    private static final int SHARDS = 3;
+
+    private static final List<DataSource> shardDataSources = new ArrayList<>();
+    private static DataSource directory;
+
+    private ShardRouter router;
+    private ShardedUserJdbcRepository repository;
+
+    @BeforeAll
+    static void createDatabases() {
+        for (int i = 0; i < SHARDS; i++) {
+            shardDataSources.add(MigratedPostgres.newDatabase().dataSource());
+        }
+        directory = MigratedPostgres.newDatabase().dataSource();
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (DataSource ds : shardDataSources) {
+            new JdbcTemplate(ds).execute("TRUNCATE users, user_username_claims, user_email_claims");
+        }
+        new JdbcTemplate(directory).execute("TRUNCATE user_shard_directory");
+        router = new ShardRouter(shardDataSources, new NamedParameterJdbcTemplate(directory));
+        repository = new ShardedUserJdbcRepository(router, new SimpleMeterRegistry());
+    }
+
+    private UserEntity user(String username, String email, String phone, Instant createdAt) {
+        UserEntity u = new UserEntity();
+        u.setUsername(username);
+        u.setEmail(email);
+        u.setPhone(phone);
+        u.setCreatedAt(createdAt);
+        u.setUpdatedAt(createdAt);
+        return u;
+    }
+
+    private long rowsOn(int shard) {
+        return new JdbcTemplate(shardDataSources.get(shard)).queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    @Test
+    @DisplayName("a user is stored on its username's shard and found by username, email and phone")
+    void pointLookups() {
+        UserEntity saved = repository.save(user("Ada", "ada@example.com", "555-0100", Instant.now()));
+
+        int shard = router.shardForUsername("ada");
+        assertThat(rowsOn(shard)).isEqualTo(1);
+        assertThat(repository.getUser(new UserRequest(null, null, null, null, "ADA"))).get()
+            .extracting(UserEntity::getId).isEqualTo(saved.getId());
+        assertThat(repository.getUser(new UserRequest(null, null, null, "Ada@Example.com", null))).isPresent();
+        assertThat(repository.getUser(new UserRequest(null, null, "(555) 0100", null, null))).isPresent();
+        assertThat(repository.findByEmail("ada@example.com").getId()).isEqualTo(saved.getId());
+    }
+
+    @Test
+    @DisplayName("search pages are cut from the merged order of all shards")
+    void scatterGatherSearch() {
+        Instant base = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < 30; i++) {
+            repository.save(user("user" + i, "user" + i + "@example.com", null, base.plusSeconds(i)));
+        }
+        Set<Integer> used = new java.util.HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            used.add(router.shardForUsername("user" + i));
+        }
+        assertThat(used).hasSizeGreaterThan(1);
+
+        Page<UserEntity> page = repository.searchUserPage(new UserSearchRequest(null, null, 2, 7, "createdAt", "desc", false));
+
+        assertThat(page.getTotalElements()).isEqualTo(30);
+        assertThat(page.getContent()).extracting(UserEntity::getUsername)
+            .containsExactly("user15", "user14", "user13", "user12", "user11", "user10", "user9");
+    }
+
+    @Test
+    @DisplayName("a search without sortBy merges the shards by created_at ascending")
+    void scatterGatherSearch_defaultSort() {
+        Instant base = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < 10; i++) {
+            repository.save(user("user" + i, "user" + i + "@example.com", null, base.plusSeconds(i)));
+        }
+
+        Page<UserEntity> page = repository.searchUserPage(new UserSearchRequest(null, null, 1, 4, null, null, false));
+
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).extracting(UserEntity::getUsername)
+            .containsExactly("user4", "user5", "user6", "user7");
+    }
+
+    @Test
+    @DisplayName("a phoneSuffix without digits is rejected before the shards are queried")
+    void phoneSuffixWithoutDigits_isRejected() {
+        repository.save(user("Ada", "ada@example.com", "555-0100", Instant.now()));
+        UserFilter filter = new UserFilter();
+        filter.setPhoneSuffix("-");
+
+        assertThatThrownBy(() -> repository.searchUserPage(new UserSearchRequest(null, filter, 0, 10, null, null, false)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(ErrorMessageConstants.ERROR_PHONE_SUFFIX_NO_DIGITS);
+    }
+
+    @Test
+    @DisplayName("emails are unique across shards and a rejected insert leaves nothing behind")
+    void globalEmailUniqueness() {
+        String first = "alpha";
+        String second = java.util.stream.IntStream.range(0, 100).mapToObj(i -> "beta" + i)
+            .filter(name -> router.shardForUsername(name) != router.shardForUsername(first))
+            .findFirst().orElseThrow();
+        repository.save(user(first, "same@example.com", null, Instant.now()));
+
+        assertThatThrownBy(() -> repository.save(user(second, "SAME@example.com", null, Instant.now())))
+            .isInstanceOf(DuplicateKeyException.class);
+        assertThat(rowsOn(router.shardForUsername(second))).isZero();
+        assertThat(repository.findByUsernameIgnoreCase(second)).isNull();
+    }
+
+    @Test
+    @DisplayName("renaming to a username on another shard moves the row and its directory entries")
+    void renameMovesShard() {
+        UserEntity saved = repository.save(user("mover", "mover@example.com", null, Instant.now()));
+        int from = router.shardForUsername("mover");
+        String renamed = java.util.stream.IntStream.range(0, 100).mapToObj(i -> "moved" + i)
+            .filter(name -> router.shardForUsername(name) != from)
+            .findFirst().orElseThrow();
+
+        saved.setUsername(renamed);
+        repository.save(saved);
+
+        assertThat(rowsOn(from)).isZero();
+        assertThat(repository.findByEmail("mover@example.com").getUsername()).isEqualTo(renamed);
+        assertThat(router.locate(ShardRouter.Kind.ID, saved.getId().toString()))
+            .containsExactly(router.shardForUsername(renamed));
+    }
+
+    @Test
+    @DisplayName("an update from a stale read is rejected and leaves the stored version alone")
+    void staleUpdateConflicts() {
+        UserEntity saved = repository.save(user("racer", "racer@example.com", null, Instant.now()));
+        UserEntity first = repository.findByUsernameIgnoreCase("racer");
+        UserEntity second = repository.findByUsernameIgnoreCase("racer");
+
+        first.setFirstName("One");
+        repository.save(first);
+        second.setFirstName("Two");
+
+        assertThat(first.getVersion()).isEqualTo(saved.getVersion() + 1);
+        assertThatThrownBy(() -> repository.save(second)).isInstanceOf(OptimisticLockingFailureException.class);
+        UserEntity stored = repository.findByUsernameIgnoreCase("racer");
+        assertThat(stored.getFirstName()).isEqualTo("One");
+        assertThat(stored.getVersion()).isEqualTo(first.getVersion());
+    }
+
+    @Test
+    @DisplayName("merge keeps the database order, including nulls last ascending")
+    void mergeOrder() {
+        UserEntity a = user("a", "a@x", null, Instant.EPOCH);
+        a.setId(java.util.UUID.randomUUID());
+        a.setLastName("Able");
+        UserEntity b = user("b", "b@x", null, Instant.EPOCH);
+        b.setId(java.util.UUID.randomUUID());
+        UserEntity c = user("c", "c@x", null, Instant.EPOCH);
+        c.setId(java.util.UUID.randomUUID());
+        c.setLastName("Baker");
+        UserSearchRequest byLastName = new UserSearchRequest(null, null, 0, 10, "lastName", "asc", false);
+        Comparator<UserEntity> order = ShardedUserJdbcRepository.order(byLastName);
+
+        List<UserEntity> merged = ShardedUserJdbcRepository.merge(List.of(List.of(a, b), List.of(c)), order, 0, 10);
+
+        assertThat(merged.stream().map(UserEntity::getUsername).collect(Collectors.toList()))
+            .containsExactly("a", "c", "b");
+    }
+}
@@ -0,0 +1,149 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for UserJdbcRepository.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserJdbcRepositoryTest {
+
+    @Mock
+    NamedParameterJdbcTemplate jdbc;
+
+    @Captor
+    ArgumentCaptor<String> sql;
+
+    @Captor
+    ArgumentCaptor<Map<String, Object>> params;
+
+    private UserJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new UserJdbcRepository(jdbc, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("getUser compares the generated username_lc column with a lowercased parameter")
+    @SuppressWarnings("unchecked")
+    void getUser_usesLowercaseColumn() {
+        when(jdbc.query(anyString(), anyMap(), any(RowMapper.class))).thenReturn(List.of());
+
+        repository.getUser(new UserRequest(null, null, null, null, "JDoe"));
+
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertThat(sql.getValue()).contains("username_lc = :username").doesNotContain("LOWER(");
+        assertThat(params.getValue()).containsEntry("username", "jdoe");
+    }
+
+    @Test
+    @DisplayName("search filters fold with Locale.ROOT regardless of the default locale")
+    void countSearch_foldsWithRootLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            when(jdbc.queryForObject(anyString(), anyMap(), eq(Long.class))).thenReturn(0L);
+            UserFilter filter = new UserFilter("IRIS", null, null, "INFO@EXAMPLE.COM", null);
+
+            repository.countSearch(new UserSearchRequest(null, filter, 0, 20, null, null, false));
+
+            verify(jdbc).queryForObject(sql.capture(), params.capture(), eq(Long.class));
+            assertThat(sql.getValue())
+                .contains("first_name_lc LIKE :firstName")
+                .contains("email_lc = :email")
+                .doesNotContain("LOWER(");
+            assertThat(params.getValue())
+                .containsEntry("firstName", "%iris%")
+                .containsEntry("email", "info@example.com");
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("phone filters use the canonical form and trailing digits match on phone_rev")
+    void countSearch_phoneFilters() {
+        when(jdbc.queryForObject(anyString(), anyMap(), eq(Long.class))).thenReturn(0L);
+        UserFilter filter = new UserFilter(null, null, "(555) 0100", null, null);
+        filter.setPhoneSuffix("01-00");
+
+        repository.countSearch(new UserSearchRequest(null, filter, 0, 20, null, null, false));
+
+        verify(jdbc).queryForObject(sql.capture(), params.capture(), eq(Long.class));
+        assertThat(sql.getValue()).contains("phone = :phone").contains("phone_rev LIKE :phoneSuffix");
+        assertThat(params.getValue())
+            .containsEntry("phone", "5550100")
+            .containsEntry("phoneSuffix", "0010%");
+    }
+
+    @Test
+    @DisplayName("includeDeleted searches run the same filters over users and users_archive")
+    @SuppressWarnings("unchecked")
+    void searchUserPage_includeDeletedUnionsArchive() {
+        when(jdbc.query(anyString(), anyMap(), any(RowMapper.class))).thenReturn(List.of());
+        when(jdbc.queryForObject(anyString(), anyMap(), eq(Long.class))).thenReturn(0L);
+        UserFilter filter = new UserFilter(null, null, null, "a@example.com", null);
+
+        repository.searchUserPage(new UserSearchRequest(null, filter, 0, 20, null, null, true));
+
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertThat(sql.getValue())
+            .contains("FROM users_archive")
+            .containsSubsequence("FROM users\n", "email_lc = :email", "UNION ALL", "FROM users_archive", "email_lc = :email",
+                "ORDER BY created_at ASC, id ASC")
+            .doesNotContain("deleted = false");
+    }
+
+    @Test
+    @DisplayName("changesSince pages by (updated_at, id) after the watermark, tombstones included")
+    @SuppressWarnings("unchecked")
+    void changesSince_keysetAfterWatermark() {
+        when(jdbc.query(anyString(), anyMap(), any(RowMapper.class))).thenReturn(List.of());
+        UUID id = UUID.randomUUID();
+
+        repository.changesSince(new Watermark(Instant.parse("2026-01-01T00:00:00Z"), id), 100, Duration.ofSeconds(5));
+
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertThat(sql.getValue())
+            .contains("(updated_at, id) > (:sinceUpdatedAt, :sinceId)")
+            .contains("updated_at < now() - make_interval(secs => :settleSeconds)")
+            .contains("ORDER BY updated_at, id LIMIT :limit")
+            .doesNotContain("deleted = false");
+        assertThat(params.getValue())
+            .containsEntry("sinceId", id)
+            .containsEntry("settleSeconds", 5.0)
+            .containsEntry("limit", 100);
+    }
+}
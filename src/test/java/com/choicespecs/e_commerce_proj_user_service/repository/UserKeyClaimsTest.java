@@ -0,0 +1,60 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks the claim tables that keep username and email unique across the hash partitions of
+ * {@code users} (changeset 009).
+ */
+class UserKeyClaimsTest {
+
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void migrate() {
+        jdbc = new JdbcTemplate(MigratedPostgres.newDatabase().dataSource());
+    }
+
+    private void insert(String username, String email) {
+        jdbc.update("INSERT INTO users (username, email) VALUES (?, ?)", username, email);
+    }
+
+    @Test
+    @DisplayName("the configured number of partitions is created")
+    void partitionCount() {
+        assertThat(jdbc.queryForObject(
+            "SELECT COUNT(*) FROM pg_inherits WHERE inhparent = 'users'::regclass", Integer.class))
+            .isEqualTo(MigratedPostgres.USERS_PARTITIONS);
+    }
+
+    @Test
+    @DisplayName("usernames and emails differing only by case are rejected whatever partition they land in")
+    void caseInsensitiveUniqueness() {
+        insert("Claimed", "claimed@example.com");
+
+        assertThatThrownBy(() -> insert("claimed", "other@example.com")).isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> insert("other", "CLAIMED@example.com")).isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    @DisplayName("renaming and deleting release the old keys")
+    void releaseOnChange() {
+        insert("renamer", "renamer@example.com");
+
+        jdbc.update("UPDATE users SET username = 'renamed' WHERE username = 'renamer'");
+        insert("Renamer", "renamer2@example.com");
+        jdbc.update("DELETE FROM users WHERE username = 'renamed'");
+        insert("renamed", "renamer@example.com");
+
+        assertThat(jdbc.queryForObject(
+            "SELECT COUNT(*) FROM user_username_claims WHERE username_lc IN ('renamer', 'renamed')", Integer.class))
+            .isEqualTo(2);
+    }
+}
@@ -0,0 +1,139 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks, with EXPLAIN against a migrated embedded Postgres, that the hot repository queries are
+ * served by the live-row partial indexes rather than by scanning the table.
+ *
+ * <p>{@code users} is hash-partitioned, so each index exists once per partition under a generated
+ * name such as {@code users_p3_email_lc_id_idx}; plans are matched on that suffix.</p>
+ */
+class UserQueryPlanTest {
+
+    private static JdbcTemplate jdbc;
+
+    /** A Sort plan node, as opposed to the "Sort Key:" detail line of a Merge Append. */
+    private static final String SORT_NODE = "Sort  (";
+
+    private final List<String> plans = new ArrayList<>();
+    private UserJdbcRepository repository;
+
+    @BeforeAll
+    static void seed() {
+        jdbc = new JdbcTemplate(MigratedPostgres.newDatabase().dataSource());
+        // A quarter soft-deleted, as the partial indexes are meant to skip
+        jdbc.update("""
+            INSERT INTO users (username, email, first_name, last_name, phone, deleted, created_at)
+            SELECT 'user' || g, 'user' || g || '@example.com', 'First' || (g % 500), 'Last' || (g % 700),
+                   '555' || lpad(g::text, 7, '0'), g % 4 = 0, now() - g * interval '1 minute'
+              FROM generate_series(1, 50000) g
+            """);
+        jdbc.execute("ANALYZE users");
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Runs EXPLAIN for every query the repository issues, then the query itself
+        NamedParameterJdbcTemplate explaining = new NamedParameterJdbcTemplate(jdbc) {
+            @Override
+            public <T> List<T> query(String sql, Map<String, ?> params, RowMapper<T> rowMapper) {
+                plans.add(String.join("\n", super.query("EXPLAIN " + sql, params, (rs, i) -> rs.getString(1))));
+                return super.query(sql, params, rowMapper);
+            }
+        };
+        repository = new UserJdbcRepository(explaining, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("getUser by email uses the live email_lc index")
+    void getUserByEmail() {
+        repository.getUser(new UserRequest(null, null, null, "User123@Example.com", null));
+
+        assertThat(plans).singleElement().asString()
+            .containsPattern("users_p\\d+_email_lc_id_idx")
+            .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("getUser by phone uses the live phone index")
+    void getUserByPhone() {
+        repository.getUser(new UserRequest(null, null, "555-000-0123", null, null));
+
+        assertThat(plans).singleElement().asString()
+            .containsPattern("users_p\\d+_phone_id_idx")
+            .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("default search merges ordered ranges of the live created_at index, without sorting")
+    void defaultSearchPage() {
+        repository.searchUserPage(new UserSearchRequest(null, null, null, null, null, null, null));
+
+        assertThat(plans).singleElement().asString()
+            .containsPattern("users_p\\d+_created_at_id_idx")
+            .doesNotContain("Seq Scan")
+            .doesNotContain(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("changesSince merges ranges of the full (updated_at, id) index, without sorting")
+    void changesSince() {
+        repository.changesSince(new Watermark(Instant.now().minusSeconds(3600), new UUID(0L, 0L)), 500, Duration.ofSeconds(5));
+
+        // The live partial index on the same columns took the plain name in each partition (009)
+        assertThat(plans).singleElement().asString()
+            .containsPattern("users_p\\d+_updated_at_id_idx1")
+            .doesNotContain("Seq Scan")
+            .doesNotContain(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("descending sort on another allow-listed column scans its live index backward")
+    void sortedSearchPage() {
+        repository.searchUserPage(new UserSearchRequest(null, null, 3, 50, "lastName", "desc", false));
+
+        assertThat(plans).singleElement().asString()
+            .contains("Index Scan Backward")
+            .containsPattern("users_p\\d+_last_name_id_idx")
+            .doesNotContain(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("findByEmail resolves the claim, then probes only the partition holding the user")
+    void findByEmailPrunesPartitions() {
+        String plan = String.join("\n", new NamedParameterJdbcTemplate(jdbc).query(
+            "EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF) " + UserRepository.FIND_BY_EMAIL,
+            Map.of("email", "user123@example.com"), (rs, i) -> rs.getString(1)));
+
+        assertThat(plan)
+            .contains("user_email_claims_pkey")
+            .doesNotContain("Seq Scan");
+        // Every other partition's primary-key probe is pruned at run time
+        assertThat(plan.lines()
+                .filter(l -> l.matches(".*users_p\\d+_pkey.*") && !l.contains("never executed"))
+                .count())
+            .isEqualTo(1);
+    }
+}
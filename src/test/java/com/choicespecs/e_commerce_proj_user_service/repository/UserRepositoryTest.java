@@ -0,0 +1,135 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jdbc.repository.config.AbstractJdbcConfiguration;
+import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+
+/**
+ * Runs the Spring Data JDBC {@link UserRepository} (the non-sharded write path) against a migrated
+ * embedded Postgres to check its {@code @Version} optimistic locking.
+ */
+class UserRepositoryTest {
+
+    private static DataSource database;
+    private static AnnotationConfigApplicationContext context;
+    private static UserRepository repository;
+    private static JdbcTemplate jdbc;
+
+    @Configuration
+    @EnableJdbcRepositories(basePackageClasses = UserRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = UserRepository.class))
+    static class JdbcConfig extends AbstractJdbcConfiguration {
+        @Bean
+        DataSource dataSource() {
+            return database;
+        }
+
+        @Bean
+        NamedParameterJdbcOperations namedParameterJdbcOperations(DataSource dataSource) {
+            return new NamedParameterJdbcTemplate(dataSource);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    @BeforeAll
+    static void start() {
+        database = MigratedPostgres.newDatabase().dataSource();
+        jdbc = new JdbcTemplate(database);
+        context = new AnnotationConfigApplicationContext(JdbcConfig.class);
+        repository = context.getBean(UserRepository.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void clean() {
+        jdbc.update("DELETE FROM users");
+    }
+
+    private UserEntity insert(String username) {
+        UserEntity user = new UserEntity(username + "@example.com", "Ada", "Lovelace", "555-0100",
+            false, Instant.now(), Instant.now());
+        user.setUsername(username);
+        return repository.save(user);
+    }
+
+    private long storedVersion(UserEntity user) {
+        return jdbc.queryForObject("SELECT version FROM users WHERE id = ?", Long.class, user.getId());
+    }
+
+    @Test
+    @DisplayName("a new user is inserted with version 0")
+    void insert_startsAtVersionZero() {
+        UserEntity saved = insert("ada");
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getVersion()).isZero();
+        assertThat(storedVersion(saved)).isZero();
+    }
+
+    @Test
+    @DisplayName("updates and soft deletes each increment the version")
+    void updateAndSoftDelete_incrementVersion() {
+        insert("ada");
+
+        UserEntity user = repository.findByUsernameIgnoreCase("ADA");
+        user.setLastName("Byron");
+        repository.save(user);
+        assertThat(storedVersion(user)).isEqualTo(1);
+
+        UserEntity deleted = repository.findByEmail("ada@example.com");
+        deleted.setDeleted(true);
+        repository.save(deleted);
+        assertThat(storedVersion(deleted)).isEqualTo(2);
+        assertThat(deleted.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("of two writers that read the same version, the second save is rejected")
+    void staleSave_throwsOptimisticLockingFailure() {
+        insert("ada");
+        UserEntity first = repository.findByUsernameIgnoreCase("ada");
+        UserEntity second = repository.findByUsernameIgnoreCase("ada");
+
+        first.setFirstName("Augusta");
+        repository.save(first);
+        second.setPhone("5550199");
+
+        assertThatThrownBy(() -> repository.save(second)).isInstanceOf(OptimisticLockingFailureException.class);
+        UserEntity stored = repository.findByUsernameIgnoreCase("ada");
+        assertThat(stored.getFirstName()).isEqualTo("Augusta");
+        assertThat(stored.getPhone()).isEqualTo("5550100");
+        assertThat(stored.getVersion()).isEqualTo(1);
+    }
+}
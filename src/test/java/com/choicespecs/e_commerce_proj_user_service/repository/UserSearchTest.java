@@ -0,0 +1,93 @@
+package com.choicespecs.e_commerce_proj_user_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.ErrorMessageConstants;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserFilter;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserSearchRequest;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs UserJdbcRepository searches against a migrated embedded Postgres and checks which users
+ * come back.
+ */
+class UserSearchTest {
+
+    private static JdbcTemplate jdbc;
+    private static UserJdbcRepository repository;
+
+    @BeforeAll
+    static void seed() {
+        jdbc = new JdbcTemplate(MigratedPostgres.newDatabase().dataSource());
+        jdbc.update("DELETE FROM users"); // drop the changelog's seed users
+        jdbc.update("""
+            INSERT INTO users (username, email, phone, created_at)
+            VALUES ('john2', 'john2@example.com', '5550101', now() - interval '3 minutes'),
+                   ('mary', 'mary@example.com', '5550102', now() - interval '2 minutes'),
+                   ('zed', 'zed@example.com', '5550112', now() - interval '1 minute')
+            """);
+        jdbc.update("""
+            INSERT INTO users (username, email, deleted, created_at, updated_at)
+            VALUES ('gone', 'gone@example.com', true, now() - interval '4 minutes', now() - interval '4 minutes')
+            """);
+        new UserArchiveRepository(new NamedParameterJdbcTemplate(jdbc)).moveBatch(Instant.now(), 10);
+        repository = new UserJdbcRepository(new NamedParameterJdbcTemplate(jdbc), new SimpleMeterRegistry());
+    }
+
+    private static Page<UserEntity> search(String q) {
+        return repository.searchUserPage(new UserSearchRequest(q, null, 0, 50, "username", "asc", false));
+    }
+
+    @Test
+    @DisplayName("free text containing digits does not match users by the last digit of their phone")
+    void textWithDigits_doesNotMatchPhones() {
+        assertThat(search("john2").getContent()).extracting(UserEntity::getUsername).containsExactly("john2");
+    }
+
+    @Test
+    @DisplayName("phone-shaped free text matches phones ending in those digits")
+    void phoneText_matchesPhoneSuffix() {
+        assertThat(search("01-02").getContent()).extracting(UserEntity::getUsername).containsExactly("mary");
+    }
+
+    @Test
+    @DisplayName("includeDeleted with the default sort pages over live and archived users by created_at")
+    void includeDeleted_defaultSortUnionsArchive() {
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM users_archive", Integer.class)).isEqualTo(1);
+
+        Page<UserEntity> page = repository.searchUserPage(new UserSearchRequest(null, null, 0, 50, null, null, true));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(UserEntity::getUsername)
+            .containsExactly("gone", "john2", "mary", "zed");
+    }
+
+    @Test
+    @DisplayName("a phoneSuffix without digits is rejected instead of matching every phone")
+    void phoneSuffixWithoutDigits_isRejected() {
+        UserFilter digits = new UserFilter();
+        digits.setPhoneSuffix("01-02");
+        assertThat(repository.searchUserPage(new UserSearchRequest(null, digits, 0, 50, "username", "asc", false))
+            .getContent()).extracting(UserEntity::getUsername).containsExactly("mary");
+
+        for (String noDigits : new String[] { "-", "abc", "()" }) {
+            UserFilter filter = new UserFilter();
+            filter.setPhoneSuffix(noDigits);
+            assertThatThrownBy(() -> repository.searchUserPage(new UserSearchRequest(null, filter, 0, 50, "username", "asc", false)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(ErrorMessageConstants.ERROR_PHONE_SUFFIX_NO_DIGITS);
+        }
+    }
+}
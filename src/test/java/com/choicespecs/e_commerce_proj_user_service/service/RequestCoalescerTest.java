@@ -0,0 +1,158 @@
+package com.choicespecs.e_commerce_proj_user_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for RequestCoalescer.
+ */
+class RequestCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+    private RequestCoalescer coalescer;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(registry, true, Duration.ofSeconds(5));
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private double count(String role) {
+        var c = registry.find("user.lookup.coalescing").tag("role", role).counter();
+        return c == null ? 0 : c.count();
+    }
+
+    @Test
+    void identicalConcurrentLookups_shareOneLoaderCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<Object> key = List.of("alice");
+
+        Future<String> leader = pool.submit(() -> coalescer.coalesce(RequestCoalescer.LOOKUP_GET, key, () -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "row";
+        }));
+        while (coalescer.inFlightCount() == 0) {
+            Thread.onSpinWait();
+        }
+        Future<String> follower = pool.submit(() -> coalescer.coalesce(RequestCoalescer.LOOKUP_GET, key, () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        while (count("follower") == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("row");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("row");
+        assertThat(calls).hasValue(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void sequentialLookups_areNotCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        coalescer.coalesce(RequestCoalescer.LOOKUP_SEARCH, List.of("q"), calls::incrementAndGet);
+        coalescer.coalesce(RequestCoalescer.LOOKUP_SEARCH, List.of("q"), calls::incrementAndGet);
+
+        assertThat(calls).hasValue(2);
+        assertThat(count("follower")).isZero();
+    }
+
+    @Test
+    void leaderFailure_isPropagatedAndEntryCleared() {
+        assertThatThrownBy(() -> coalescer.coalesce(RequestCoalescer.LOOKUP_GET, List.of("x"), () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("db down");
+
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void disabled_alwaysCallsLoader() throws Exception {
+        RequestCoalescer off = new RequestCoalescer(registry, false, Duration.ofSeconds(5));
+        AtomicInteger calls = new AtomicInteger();
+        off.coalesce(RequestCoalescer.LOOKUP_GET, List.of("a"), calls::incrementAndGet);
+
+        assertThat(calls).hasValue(1);
+        assertThat(count("leader")).isZero();
+    }
+
+    @Test
+    void followerOfHungLeader_runsLookupItselfAfterMaxWait() throws Exception {
+        RequestCoalescer bounded = new RequestCoalescer(registry, true, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> key = List.of("slow");
+
+        Future<String> leader = pool.submit(() -> bounded.coalesce(RequestCoalescer.LOOKUP_GET, key, () -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "late";
+        }));
+        while (bounded.inFlightCount() == 0) {
+            Thread.onSpinWait();
+        }
+        try {
+            assertThat(bounded.coalesce(RequestCoalescer.LOOKUP_GET, key, () -> "direct")).isEqualTo("direct");
+            assertThat(count("timeout")).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+    }
+
+    @Test
+    void leaderError_failsFollowersWithoutWaitingOrReloading() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        List<Object> key = List.of("broken");
+
+        Future<String> leader = pool.submit(() -> coalescer.coalesce(RequestCoalescer.LOOKUP_GET, key, () -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            throw new StackOverflowError("too deep");
+        }));
+        while (coalescer.inFlightCount() == 0) {
+            Thread.onSpinWait();
+        }
+        Future<String> follower = pool.submit(() -> coalescer.coalesce(RequestCoalescer.LOOKUP_GET, key, () -> {
+            calls.incrementAndGet();
+            return "reloaded";
+        }));
+        while (count("follower") == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> follower.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> leader.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(calls).hasValue(1);
+        assertThat(count("timeout")).isZero();
+    }
+}
@@ -0,0 +1,72 @@
+package com.choicespecs.e_commerce_proj_user_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.choicespecs.e_commerce_proj_user_service.repository.UserArchiveRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for UserArchiver.
+ */
+class UserArchiverTest {
+
+    private UserArchiveRepository repository;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserArchiveRepository.class);
+        registry = new SimpleMeterRegistry();
+    }
+
+    private UserArchiver archiver(boolean enabled, double maxRowsPerSecond) {
+        return new UserArchiver(repository, registry, enabled, Duration.ofDays(30), 100, maxRowsPerSecond,
+            Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("moves full batches until a short batch shows nothing is left")
+    void movesUntilShortBatch() throws InterruptedException {
+        when(repository.moveBatch(any(), eq(100))).thenReturn(100, 100, 42);
+
+        int total = archiver(true, 1_000_000).run();
+
+        assertThat(total).isEqualTo(242);
+        verify(repository, times(3)).moveBatch(any(), eq(100));
+        assertThat(registry.counter("user.archive.moved").count()).isEqualTo(242.0);
+    }
+
+    @Test
+    @DisplayName("sleeps between batches to stay under the configured row rate")
+    void throttlesToRowRate() throws InterruptedException {
+        when(repository.moveBatch(any(), eq(100))).thenReturn(100, 100, 0);
+
+        long start = System.nanoTime();
+        archiver(true, 1000).run();
+
+        // two full batches of 100 at 1000 rows/s: at least ~200 ms of pauses
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(180));
+    }
+
+    @Test
+    @DisplayName("a disabled archiver never touches the database")
+    void disabled() {
+        archiver(false, 1000).archive();
+
+        verifyNoInteractions(repository);
+    }
+}
@@ -0,0 +1,149 @@
+package com.choicespecs.e_commerce_proj_user_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.choicespecs.e_commerce_proj_user_service.dto.ChangesSinceRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.UserRequest;
+import com.choicespecs.e_commerce_proj_user_service.dto.Watermark;
+import com.choicespecs.e_commerce_proj_user_service.entity.UserEntity;
+import com.choicespecs.e_commerce_proj_user_service.event.EventPublisher;
+import com.choicespecs.e_commerce_proj_user_service.event.UserServiceUpdatedEvent;
+import com.choicespecs.e_commerce_proj_user_service.repository.UserJdbcRepository;
+import com.choicespecs.e_commerce_proj_user_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for UserService.
+ */
+class UserServiceTest {
+
+    private UserRepository userRepository;
+    private UserJdbcRepository userJdbcRepository;
+    private EventPublisher eventPublisher;
+    private UserService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        eventPublisher = mock(EventPublisher.class);
+        userJdbcRepository = mock(UserJdbcRepository.class);
+        service = new UserService(userRepository, userJdbcRepository, eventPublisher, new ObjectMapper(),
+            mock(RequestCoalescer.class), "delta", mock(ObjectProvider.class), 3, Duration.ofSeconds(5));
+    }
+
+    private static UserEntity stored(long version) {
+        UserEntity user = new UserEntity("jdoe@example.com", "John", "Doe", "5550100", false, Instant.EPOCH, Instant.EPOCH);
+        user.setId(UUID.randomUUID());
+        user.setUsername("jdoe");
+        user.setVersion(version);
+        return user;
+    }
+
+    @Test
+    @DisplayName("updateUser re-reads and re-applies the change after a version conflict")
+    void updateUser_retriesOnConflict() throws Exception {
+        UserEntity stale = stored(4);
+        UserEntity fresh = stored(5);
+        when(userRepository.findByUsernameIgnoreCase("jdoe")).thenReturn(stale, fresh);
+        when(userRepository.save(stale)).thenThrow(new OptimisticLockingFailureException("conflict"));
+
+        service.updateUser("jdoe", new UserRequest("Jane", null, null, null, null));
+
+        verify(userRepository, times(2)).findByUsernameIgnoreCase("jdoe");
+        verify(userRepository).save(fresh);
+        verify(eventPublisher).publishUserUpdatedEvent(eq(fresh), anyMap(), eq(UserServiceUpdatedEvent.PayloadType.DELTA));
+    }
+
+    @Test
+    @DisplayName("updateUser gives up after the configured attempts without publishing")
+    void updateUser_givesUpAfterMaxAttempts() {
+        when(userRepository.findByUsernameIgnoreCase("jdoe")).thenAnswer(inv -> stored(1));
+        when(userRepository.save(any())).thenThrow(new OptimisticLockingFailureException("conflict"));
+
+        assertThatThrownBy(() -> service.updateUser("jdoe", new UserRequest("Jane", null, null, null, null)))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+
+        verify(userRepository, times(3)).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("deleteUser retries a conflicting soft delete on a fresh read")
+    void deleteUser_retriesOnConflict() {
+        UserEntity stale = stored(2);
+        UserEntity fresh = stored(3);
+        when(userRepository.findByEmail("jdoe@example.com")).thenReturn(stale, fresh);
+        when(userRepository.save(stale)).thenThrow(new OptimisticLockingFailureException("conflict"));
+
+        service.deleteUser("jdoe@example.com");
+
+        verify(eventPublisher).publishUserDeletedEvent(fresh);
+    }
+
+    @Test
+    @DisplayName("changesSince hands back the last row as the next watermark and flags a full page")
+    void changesSince_nextWatermarkIsLastRow() {
+        UserEntity first = stored(1);
+        UserEntity last = stored(1);
+        last.setUpdatedAt(Instant.parse("2026-01-02T00:00:00Z"));
+        Watermark since = new Watermark(Instant.EPOCH, null);
+        when(userJdbcRepository.changesSince(since, 2, Duration.ofSeconds(5))).thenReturn(List.of(first, last));
+
+        service.changesSince(new ChangesSinceRequest(since, 2), "req-1");
+
+        ArgumentCaptor<Watermark> next = ArgumentCaptor.forClass(Watermark.class);
+        verify(eventPublisher).publishUserChangesSuccess(eq("req-1"), eq(since), eq(2), next.capture(), eq(true),
+            eq(List.of(first, last)));
+        assertThat(next.getValue().getUpdatedAt()).isEqualTo(last.getUpdatedAt());
+        assertThat(next.getValue().getId()).isEqualTo(last.getId());
+    }
+
+    @Test
+    @DisplayName("changesSince without changes keeps the caller's watermark")
+    void changesSince_noChangesKeepsWatermark() {
+        Watermark since = new Watermark(Instant.EPOCH, UUID.randomUUID());
+        when(userJdbcRepository.changesSince(since, 500, Duration.ofSeconds(5))).thenReturn(List.of());
+
+        service.changesSince(new ChangesSinceRequest(since, null), "req-2");
+
+        verify(eventPublisher).publishUserChangesSuccess("req-2", since, 500, since, false, List.of());
+    }
+
+    @Test
+    @DisplayName("changesSince caps a large limit at the maximum and defaults a missing or non-positive one")
+    void changesSince_limitIsCappedOrDefaulted() {
+        Watermark since = new Watermark(Instant.EPOCH, UUID.randomUUID());
+        when(userJdbcRepository.changesSince(eq(since), anyInt(), eq(Duration.ofSeconds(5)))).thenReturn(List.of());
+
+        service.changesSince(new ChangesSinceRequest(since, 5000), "req-3");
+        service.changesSince(new ChangesSinceRequest(since, 1000), "req-4");
+        service.changesSince(new ChangesSinceRequest(since, 0), "req-5");
+
+        verify(userJdbcRepository, times(2)).changesSince(since, UserService.MAX_CHANGES_LIMIT, Duration.ofSeconds(5));
+        verify(userJdbcRepository).changesSince(since, UserService.DEFAULT_CHANGES_LIMIT, Duration.ofSeconds(5));
+        verify(eventPublisher).publishUserChangesSuccess("req-3", since, 1000, since, false, List.of());
+    }
+}
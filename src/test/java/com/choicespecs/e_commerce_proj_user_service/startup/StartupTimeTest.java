@@ -0,0 +1,229 @@
+package com.choicespecs.e_commerce_proj_user_service.startup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.choicespecs.e_commerce_proj_user_service.constants.RabbitMQConstants;
+
+/**
+ * Measures time-to-first-consumed-message for the packaged application, with and without the
+ * {@code fast-startup} optimizations (Spring AOT + CDS archive).
+ *
+ * <p>Each run starts the extracted jar in a fresh JVM while a CREATE command is already waiting
+ * on the broker, and stops the clock when the resulting user event arrives. Migrations are applied
+ * first with the {@code migrate} run mode, then an unmeasured priming run declares the topology. Every variant is run
+ * {@code startup.runs} times and the median is reported, printed and written to
+ * {@code target/startup-report.txt}.</p>
+ *
+ * <p>Needs the jar and archive from {@code mvn -Pfast-startup package -DskipTests} plus the
+ * compose Postgres and RabbitMQ ({@code docker compose up -d postgres rabbitmq}). Excluded from
+ * the default build, run with:</p>
+ * <pre>
+ * mvn -Pstartuptest test
+ * </pre>
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    private static final Path APP_DIR = Path.of(System.getProperty("startup.app-dir", "target/cds"));
+    private static final String APP_JAR = System.getProperty("startup.app-jar", "e-commerce-proj-user-service-0.0.1-SNAPSHOT.jar");
+    private static final String DB_URL = System.getProperty("startup.db.url", "jdbc:postgresql://localhost:5432/userdb");
+    private static final String DB_USER = System.getProperty("startup.db.username", "user");
+    private static final String DB_PASSWORD = System.getProperty("startup.db.password", "password");
+    private static final String RABBIT_HOST = System.getProperty("startup.rabbit.host", "localhost");
+    private static final int RABBIT_PORT = Integer.getInteger("startup.rabbit.port", 5672);
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+
+    private static CachingConnectionFactory connectionFactory;
+    private static RabbitTemplate rabbit;
+    private static Queue events;
+
+    @BeforeAll
+    static void connect() {
+        assumeTrue(Files.isRegularFile(appJar()), "Run mvn -Pfast-startup package -DskipTests first");
+        connectionFactory = new CachingConnectionFactory(RABBIT_HOST, RABBIT_PORT);
+        rabbit = new RabbitTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void timeToFirstConsumedMessage() throws Exception {
+        // Priming: migrations, then exchanges and queues, so later runs measure a steady-state start
+        migrate();
+        measure(List.of());
+        bindEventQueue();
+
+        List<String> fast = new ArrayList<>(List.of("-Dspring.aot.enabled=true"));
+        Path archive = APP_DIR.resolve("application.jsa");
+        if (Files.isRegularFile(archive)) {
+            fast.add("-XX:SharedArchiveFile=" + archive);
+        }
+
+        Result baseline = median(List.of());
+        Result optimized = median(fast);
+
+        String report = String.format("""
+            time to first consumed message (median of %d)
+              baseline      %6d ms   (Spring reports started in %s s)
+              aot + cds     %6d ms   (Spring reports started in %s s)
+            """, RUNS, baseline.firstMessageMs, baseline.springStarted,
+            optimized.firstMessageMs, optimized.springStarted);
+        System.out.println(report);
+        Path out = Path.of("target", "startup-report.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report);
+
+        assertThat(optimized.firstMessageMs).isPositive();
+    }
+
+    private record Result(long firstMessageMs, String springStarted) {}
+
+    private Result median(List<String> jvmArgs) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            results.add(measure(jvmArgs));
+        }
+        results.sort((a, b) -> Long.compare(a.firstMessageMs, b.firstMessageMs));
+        return results.get(results.size() / 2);
+    }
+
+    /**
+     * Queues a CREATE command, starts the application and waits for the event it publishes.
+     */
+    private Result measure(List<String> jvmArgs) throws Exception {
+        if (events != null) {
+            rabbit.send(RabbitMQConstants.USER_EXCHANGE, RabbitMQConstants.USER_CREATE_COMMAND_ROUTING_KEY, createCommand());
+        }
+        long start = System.nanoTime();
+        Process app = new ProcessBuilder(javaCommand(jvmArgs)).redirectErrorStream(true).start();
+        String[] started = {"?"};
+        Thread logReader = new Thread(() -> scanLog(app, started), "startup-log-reader");
+        logReader.setDaemon(true);
+        logReader.start();
+        try {
+            long elapsedMs = 0;
+            if (events != null) {
+                Message event = rabbit.receive(events.getName(), TimeUnit.MINUTES.toMillis(2));
+                elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertThat(event).as("user event from the started application").isNotNull();
+            }
+            waitForStarted(started);
+            return new Result(elapsedMs, started[0]);
+        } finally {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+        }
+    }
+
+    private void migrate() throws Exception {
+        Process migrate = new ProcessBuilder(javaCommand(List.of(), "migrate")).inheritIO().start();
+        assertThat(migrate.waitFor(5, TimeUnit.MINUTES)).isTrue();
+        assertThat(migrate.exitValue()).as("migrate exit code").isZero();
+    }
+
+    private static List<String> javaCommand(List<String> jvmArgs, String... programArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(appJar().toString());
+        Collections.addAll(command, programArgs);
+        Collections.addAll(command,
+            "--spring.datasource.url=" + DB_URL,
+            "--spring.datasource.username=" + DB_USER,
+            "--spring.datasource.password=" + DB_PASSWORD,
+            "--spring.rabbitmq.host=" + RABBIT_HOST,
+            "--spring.rabbitmq.port=" + RABBIT_PORT,
+            "--server.port=0");
+        return command;
+    }
+
+    private static void bindEventQueue() {
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        events = new AnonymousQueue();
+        admin.declareQueue(events);
+        TopicExchange exchange = new TopicExchange(RabbitMQConstants.USER_EXCHANGE, true, false);
+        admin.declareBinding(BindingBuilder.bind(events).to(exchange).with(RabbitMQConstants.USER_CREATED_ROUTING_KEY));
+        admin.declareBinding(BindingBuilder.bind(events).to(exchange).with(RabbitMQConstants.USER_UPDATED_ROUTING_KEY));
+    }
+
+    private static Message createCommand() {
+        String n = UUID.randomUUID().toString().substring(0, 12);
+        String body = """
+            {"action":"create","user":{"username":"startup-%s","email":"startup-%s@startup.test",\
+            "phone":"555%07d","firstName":"Startup","lastName":"Test"}}"""
+            .formatted(n, n, Math.abs(n.hashCode() % 10_000_000));
+        MessageProperties props = new MessageProperties();
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        props.setMessageId(UUID.randomUUID().toString());
+        return new Message(body.getBytes(StandardCharsets.UTF_8), props);
+    }
+
+    private static void scanLog(Process app, String[] started) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(app.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher m = STARTED.matcher(line);
+                if (m.find()) {
+                    synchronized (started) {
+                        started[0] = m.group(1);
+                        started.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException ignored) {
+            // process was stopped
+        }
+    }
+
+    private static void waitForStarted(String[] started) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        synchronized (started) {
+            while ("?".equals(started[0]) && System.nanoTime() < deadline) {
+                started.wait(1000);
+            }
+        }
+        assertThat(started[0]).as("application startup line").isNotEqualTo("?");
+    }
+
+    private static Path appJar() {
+        return APP_DIR.resolve(APP_JAR);
+    }
+}